@@ -0,0 +1,51 @@
+/**
+ * GammaConsole (https://github.com/UnexomWid/GammaConsole)
+ *
+ * This project is licensed under the MIT license.
+ * Copyright (c) 2019 UnexomWid (https://uw.exom.dev)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the
+ * following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package me.unexomwid.gammaconsole;
+
+/**
+ * Helpers shared by the benchmarks.
+ *
+ * @author UnexomWid
+ */
+final class Benchmarks {
+
+    private Benchmarks() {
+
+    }
+
+    /**
+     * Creates a started, headless log which already keeps the specified amount of logs.
+     */
+    static GammaLog createLog(int history) throws InterruptedException {
+        GammaLog log = new GammaLog();
+        log.setMaxLogCount(history);
+        log.start();
+
+        for(int i = 0; i < history; i++)
+            log.printInfo("History message " + i, "Caller" + (i % 64));
+        while(log.getLogCount() < history)
+            Thread.sleep(10);
+
+        return log;
+    }
+}
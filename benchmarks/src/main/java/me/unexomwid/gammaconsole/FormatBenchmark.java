@@ -0,0 +1,80 @@
+/**
+ * GammaConsole (https://github.com/UnexomWid/GammaConsole)
+ *
+ * This project is licensed under the MIT license.
+ * Copyright (c) 2019 UnexomWid (https://uw.exom.dev)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the
+ * following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package me.unexomwid.gammaconsole;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the formatting of a log: the timestamp (in both modes), the whole HTML row, and the plain text used by
+ * the virtualized view and the search index.
+ *
+ * @author UnexomWid
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class FormatBenchmark {
+
+    @Param({"false", "true"})
+    public boolean fullTimestamp;
+
+    private LogFormatter formatter;
+    private StringBuilder out;
+    private long time;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        this.formatter = new LogFormatter();
+        this.formatter.setHalfTextSpacing(15);
+        this.out = new StringBuilder(256);
+        this.time = System.currentTimeMillis();
+    }
+
+    @Benchmark
+    public void appendTimestamp(Blackhole blackhole) {
+        this.out.setLength(0);
+        // A new millisecond every call, so the cached second changes every 1000 calls.
+        this.formatter.appendTimestamp(this.time++, this.fullTimestamp, this.out);
+        blackhole.consume(this.out.length());
+    }
+
+    @Benchmark
+    public void appendHtml(Blackhole blackhole) {
+        this.out.setLength(0);
+        this.formatter.appendHtml(LogLevel.INFO, this.time++, "FormatBenchmark", "Benchmark message with <b>HTML</b>", this.fullTimestamp, this.out);
+        blackhole.consume(this.out.length());
+    }
+
+    @Benchmark
+    public void appendPlainText(Blackhole blackhole) {
+        this.out.setLength(0);
+        LogFormatter.appendPlainText("Benchmark message with <b>HTML</b> &amp; entities", this.out);
+        blackhole.consume(this.out.length());
+    }
+}
@@ -0,0 +1,62 @@
+/**
+ * GammaConsole (https://github.com/UnexomWid/GammaConsole)
+ *
+ * This project is licensed under the MIT license.
+ * Copyright (c) 2019 UnexomWid (https://uw.exom.dev)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the
+ * following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package me.unexomwid.gammaconsole;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of printInfo(String, String) on the calling thread, while the console keeps a full history of
+ * the specified size. With a window attached, the logs are also added to the search index.
+ *
+ * @author UnexomWid
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class PrintBenchmark {
+
+    @Param({"1024", "65536", "1048576"})
+    public int history;
+
+    @Param({"false", "true"})
+    public boolean attached;
+
+    private GammaLog log;
+
+    @Setup(Level.Trial)
+    public void setUp() throws InterruptedException {
+        this.log = Benchmarks.createLog(this.history);
+        if(this.attached)
+            this.log.addListener(() -> { });
+    }
+
+    @Benchmark
+    public void printInfo() {
+        this.log.printInfo("Benchmark message with <b>HTML</b>", "PrintBenchmark");
+    }
+}
@@ -0,0 +1,97 @@
+/**
+ * GammaConsole (https://github.com/UnexomWid/GammaConsole)
+ *
+ * This project is licensed under the MIT license.
+ * Copyright (c) 2019 UnexomWid (https://uw.exom.dev)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the
+ * following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package me.unexomwid.gammaconsole;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures saving the whole history in each file format, like save() does. The files are written to a channel that
+ * discards them, so the disk does not skew the results.
+ *
+ * @author UnexomWid
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class SaveBenchmark {
+
+    @Param({"65536", "1048576"})
+    public int history;
+
+    @Param({"HTML", "BINARY", "BINARY_COMPRESSED"})
+    public LogFileFormat format;
+
+    private GammaLog log;
+
+    @Setup(Level.Trial)
+    public void setUp() throws InterruptedException {
+        this.log = Benchmarks.createLog(this.history);
+    }
+
+    @Benchmark
+    public long save() throws Exception {
+        ArrayList<LogRecord> records = new ArrayList<>(this.history);
+        synchronized(this.log.storeLock) {
+            for(long sequence = this.log.store.first(); sequence < this.log.store.next(); sequence++)
+                records.add(this.log.store.get(sequence));
+        }
+
+        DiscardingChannel channel = new DiscardingChannel();
+        try(LogFileWriter writer = this.format.createWriter(channel, this.log)) {
+            for(LogRecord record : records)
+                writer.write(record);
+        }
+
+        return channel.written;
+    }
+
+    private static final class DiscardingChannel implements WritableByteChannel {
+        long written;
+
+        @Override
+        public int write(ByteBuffer buffer) {
+            int count = buffer.remaining();
+            buffer.position(buffer.limit());
+            this.written += count;
+            return count;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+
+        }
+    }
+}
@@ -0,0 +1,70 @@
+/**
+ * GammaConsole (https://github.com/UnexomWid/GammaConsole)
+ *
+ * This project is licensed under the MIT license.
+ * Copyright (c) 2019 UnexomWid (https://uw.exom.dev)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the
+ * following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package me.unexomwid.gammaconsole;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the ingest side: adding a log to a full store (which evicts the oldest one), and handing a log through
+ * the queue.
+ *
+ * @author UnexomWid
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class StoreBenchmark {
+
+    @Param({"65536", "1048576"})
+    public int capacity;
+
+    private LogStore store;
+    private LogQueue<LogRecord> queue;
+    private LogRecord record;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        this.store = new LogStore(this.capacity, 0);
+        this.queue = new LogQueue<>(65536);
+        this.record = new LogRecord(LogLevel.INFO, System.currentTimeMillis(), "StoreBenchmark", "Benchmark message", "main");
+
+        for(int i = 0; i < this.capacity; i++)
+            this.store.add(this.record);
+    }
+
+    @Benchmark
+    public void add() {
+        this.store.add(this.record);
+    }
+
+    @Benchmark
+    public LogRecord offerAndPoll() {
+        this.queue.offer(this.record);
+        return this.queue.poll();
+    }
+}
@@ -0,0 +1,330 @@
+/**
+ * GammaConsole (https://github.com/UnexomWid/GammaConsole)
+ *
+ * This project is licensed under the MIT license.
+ * Copyright (c) 2019 UnexomWid (https://uw.exom.dev)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the
+ * following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package me.unexomwid.gammaconsole;
+
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Reads logs saved in the binary format (see {@link BinaryLogWriter}).
+ *
+ * The file is memory-mapped in windows of up to 1 GiB, so files of any size can be read without copying them
+ * into the heap first. A block that was only partially written (e.g. because the application crashed) ends the
+ * file. Logs can also be read from a stream, such as the socket of a {@link LogServer}.
+ *
+ * @author UnexomWid
+ */
+final class BinaryLogReader implements Closeable {
+
+    private static final long MAX_WINDOW = 1L << 30;
+
+    private final FileChannel channel;
+    private final long fileSize;
+    /**
+     * The stream to read from, or null when reading a file.
+     */
+    private final DataInputStream input;
+    private final Inflater inflater;
+
+    private MappedByteBuffer window;
+    private long windowStart;
+    private long position;
+
+    private byte[] stored;
+    private byte[] block;
+    private int offset;
+    private int remaining;
+    private long lastTime;
+    private final ArrayList<String> symbols;
+    /**
+     * The traces read from the current block, so that the logs of a repeated exception share one.
+     */
+    private final HashMap<String, LogTrace> traces;
+    private final byte version;
+
+    BinaryLogReader(File file) throws IOException {
+        this.channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        this.fileSize = this.channel.size();
+        this.input = null;
+        this.symbols = new ArrayList<>();
+        this.traces = new HashMap<>();
+        this.stored = new byte[0];
+        this.block = new byte[0];
+
+        try {
+            if(this.fileSize < BinaryLogWriter.HEADER_SIZE)
+                throw new EOFException("Not a GammaConsole log file: " + file);
+
+            byte[] header = new byte[BinaryLogWriter.HEADER_SIZE];
+            map(0, header.length);
+            this.window.get(header);
+
+            this.version = checkHeader(header, file);
+            this.inflater = (header[5] & BinaryLogWriter.FLAG_COMPRESSED) != 0 ? new Inflater() : null;
+            this.position = BinaryLogWriter.HEADER_SIZE;
+        }
+        catch(IOException ex) {
+            this.channel.close();
+            throw ex;
+        }
+    }
+
+    /**
+     * Reads logs from a stream, which starts with the header of the format. The stream is read as the logs are
+     * needed, so next() waits for the stream.
+     *
+     * @param input The stream to read from. It is closed along with the reader.
+     */
+    BinaryLogReader(InputStream input) throws IOException {
+        this.channel = null;
+        this.fileSize = -1;
+        this.input = new DataInputStream(input);
+        this.symbols = new ArrayList<>();
+        this.traces = new HashMap<>();
+        this.stored = new byte[0];
+        this.block = new byte[0];
+
+        try {
+            byte[] header = new byte[BinaryLogWriter.HEADER_SIZE];
+            this.input.readFully(header);
+
+            this.version = checkHeader(header, "stream");
+            this.inflater = (header[5] & BinaryLogWriter.FLAG_COMPRESSED) != 0 ? new Inflater() : null;
+        }
+        catch(IOException ex) {
+            this.input.close();
+            throw ex;
+        }
+    }
+
+    /**
+     * Checks the magic bytes and the version of the header.
+     *
+     * @return The version.
+     */
+    private static byte checkHeader(byte[] header, Object source) throws IOException {
+        for(int i = 0; i < BinaryLogWriter.MAGIC.length; i++)
+            if(header[i] != BinaryLogWriter.MAGIC[i])
+                throw new IOException("Not a GammaConsole log file: " + source);
+        if(header[4] < 1 || header[4] > BinaryLogWriter.VERSION)
+            throw new IOException("Unsupported GammaConsole log version: " + header[4]);
+
+        return header[4];
+    }
+
+    /**
+     * Reads the next log.
+     *
+     * @return The next log, or null if there are no more logs.
+     */
+    LogRecord next() throws IOException {
+        while(this.remaining == 0)
+            if(!readBlock())
+                return null;
+
+        LogLevel level = LogLevel.of(this.block[this.offset++]);
+        long time = this.lastTime + unzigzag(readVarLong());
+        String caller = readSymbol();
+        String thread = readSymbol();
+        String channel = this.version >= 2 ? readSymbol() : "";
+        String message = readString();
+        String trace = this.version >= 3 ? readSymbol() : "";
+
+        this.lastTime = time;
+        this.remaining--;
+
+        return new LogRecord(level, time, caller, message, thread, channel.isEmpty() ? null : channel, trace.isEmpty() ? null : this.traces.computeIfAbsent(trace, LogTrace::new));
+    }
+
+    /**
+     * Checks whether the next log can be read without reading another block.
+     */
+    boolean hasBufferedRecords() {
+        return this.remaining > 0;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if(this.inflater != null)
+            this.inflater.end();
+        this.window = null;
+        if(this.input != null)
+            this.input.close();
+        else this.channel.close();
+    }
+
+    private boolean readBlock() throws IOException {
+        if(this.input != null)
+            return readStreamBlock();
+
+        if(this.position + BinaryLogWriter.BLOCK_HEADER_SIZE > this.fileSize)
+            return false;
+
+        map(this.position, BinaryLogWriter.BLOCK_HEADER_SIZE);
+        int index = (int) (this.position - this.windowStart);
+        int rawLength = this.window.getInt(index);
+        int storedLength = this.window.getInt(index + 4);
+        int recordCount = this.window.getInt(index + 8);
+
+        long payload = this.position + BinaryLogWriter.BLOCK_HEADER_SIZE;
+        if(rawLength < 0 || storedLength < 0 || payload + storedLength > this.fileSize)
+            return false;
+
+        map(payload, storedLength);
+        index = (int) (payload - this.windowStart);
+
+        if(this.block.length < rawLength)
+            this.block = new byte[rawLength];
+
+        if(this.inflater == null) {
+            this.window.position(index);
+            this.window.get(this.block, 0, rawLength);
+        }
+        else {
+            if(this.stored.length < storedLength)
+                this.stored = new byte[storedLength];
+            this.window.position(index);
+            this.window.get(this.stored, 0, storedLength);
+            inflate(storedLength, rawLength);
+        }
+
+        this.position = payload + storedLength;
+        startBlock(recordCount);
+
+        return true;
+    }
+
+    /**
+     * Reads the next block of the stream, waiting for it if needed.
+     *
+     * @return False if the stream ended before the block, true otherwise.
+     */
+    private boolean readStreamBlock() throws IOException {
+        int rawLength;
+        try {
+            rawLength = this.input.readInt();
+        }
+        catch(EOFException ex) {
+            return false;
+        }
+        int storedLength = this.input.readInt();
+        int recordCount = this.input.readInt();
+
+        if(rawLength < 0 || storedLength < 0)
+            throw new IOException("Corrupted GammaConsole log block at " + this.position);
+
+        if(this.block.length < rawLength)
+            this.block = new byte[rawLength];
+
+        if(this.inflater == null)
+            this.input.readFully(this.block, 0, rawLength);
+        else {
+            if(this.stored.length < storedLength)
+                this.stored = new byte[storedLength];
+            this.input.readFully(this.stored, 0, storedLength);
+            inflate(storedLength, rawLength);
+        }
+
+        this.position += BinaryLogWriter.BLOCK_HEADER_SIZE + storedLength;
+        startBlock(recordCount);
+
+        return true;
+    }
+
+    private void inflate(int storedLength, int rawLength) throws IOException {
+        try {
+            this.inflater.setInput(this.stored, 0, storedLength);
+            int length = 0;
+            while(length < rawLength && !this.inflater.finished())
+                length += this.inflater.inflate(this.block, length, rawLength - length);
+            this.inflater.reset();
+        }
+        catch(DataFormatException ex) {
+            throw new IOException("Corrupted GammaConsole log block at " + this.position, ex);
+        }
+    }
+
+    private void startBlock(int recordCount) {
+        this.offset = 0;
+        this.remaining = recordCount;
+        this.lastTime = 0;
+        this.symbols.clear();
+        this.traces.clear();
+    }
+
+    /**
+     * Makes sure that the window covers the specified range of the file.
+     */
+    private void map(long start, long length) throws IOException {
+        if(this.window != null && start >= this.windowStart && start + length <= this.windowStart + this.window.capacity())
+            return;
+
+        long size = Math.min(this.fileSize - start, Math.max(length, MAX_WINDOW));
+        this.window = this.channel.map(FileChannel.MapMode.READ_ONLY, start, size);
+        this.windowStart = start;
+    }
+
+    private String readSymbol() {
+        int index = (int) readVarLong();
+        if(index < this.symbols.size())
+            return this.symbols.get(index);
+
+        String symbol = readString();
+        this.symbols.add(symbol);
+        return symbol;
+    }
+
+    private String readString() {
+        int length = (int) readVarLong();
+        String string = new String(this.block, this.offset, length, StandardCharsets.UTF_8);
+        this.offset += length;
+
+        return string;
+    }
+
+    private long readVarLong() {
+        long value = 0;
+        for(int shift = 0; ; shift += 7) {
+            byte b = this.block[this.offset++];
+            value |= (long) (b & 0x7F) << shift;
+            if(b >= 0)
+                return value;
+        }
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
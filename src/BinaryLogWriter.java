@@ -0,0 +1,268 @@
+/**
+ * GammaConsole (https://github.com/UnexomWid/GammaConsole)
+ *
+ * This project is licensed under the MIT license.
+ * Copyright (c) 2019 UnexomWid (https://uw.exom.dev)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the
+ * following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package me.unexomwid.gammaconsole;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.zip.Deflater;
+
+/**
+ * Writes logs in the compact binary format of the console.
+ *
+ * A file starts with the magic bytes "GCLG", the format version and a flags byte. It is followed by blocks,
+ * each one holding up to 64 KiB of logs:
+ *
+ *   int rawLength, int storedLength, int recordCount, byte[storedLength] payload
+ *
+ * The payload is Deflate-compressed when the compression flag is set. Inside a block, each log is written as:
+ *
+ *   byte level, varlong timeDelta, varint caller, varint thread, varint channel, string message, varint trace
+ *
+ * The time is relative to the previous log of the block (zigzag-encoded). Callers, threads, channels and stack
+ * traces are indices in a symbol table that each block starts from scratch; an index equal to the size of the
+ * table is followed by a new symbol. Logs without a channel (or trace) have an empty one, and a repeated exception
+ * only costs its index. Strings are written as a varint length followed by the UTF-8 bytes. Version 1 files have no
+ * channels, and version 2 files have no traces.
+ *
+ * @author UnexomWid
+ */
+final class BinaryLogWriter implements LogFileWriter {
+
+    static final byte[] MAGIC = { 'G', 'C', 'L', 'G' };
+    static final byte VERSION = 3;
+    static final byte FLAG_COMPRESSED = 1;
+    static final int HEADER_SIZE = 6;
+    static final int BLOCK_HEADER_SIZE = 12;
+    static final int BLOCK_SIZE = 64 * 1024;
+
+    private final WritableByteChannel channel;
+    private final Deflater deflater;
+
+    private byte[] block;
+    private int length;
+    private int recordCount;
+    private long lastTime;
+    private final HashMap<String, Integer> symbols;
+
+    private byte[] compressed;
+    private final ByteBuffer blockHeader;
+    private long written;
+    private boolean headerWritten;
+
+    /**
+     * @param channel The channel to write to.
+     * @param compress Whether to compress the blocks.
+     */
+    BinaryLogWriter(WritableByteChannel channel, boolean compress) {
+        this.channel = channel;
+        this.deflater = compress ? new Deflater(Deflater.BEST_SPEED) : null;
+
+        this.block = new byte[BLOCK_SIZE + 1024];
+        this.symbols = new HashMap<>();
+        this.compressed = new byte[0];
+        this.blockHeader = ByteBuffer.allocate(Math.max(HEADER_SIZE, BLOCK_HEADER_SIZE));
+    }
+
+    @Override
+    public void write(LogRecord record) throws IOException {
+        writeByte(record.level.ordinal());
+        writeVarLong(zigzag(record.time - this.lastTime));
+        writeSymbol(record.caller);
+        writeSymbol(record.thread);
+        writeSymbol(record.channel == null ? "" : record.channel);
+        writeString(String.valueOf(record.message));
+        writeSymbol(record.trace == null ? "" : record.trace.text());
+
+        this.lastTime = record.time;
+        this.recordCount++;
+
+        if(this.length >= BLOCK_SIZE)
+            writeBlock();
+    }
+
+    @Override
+    public void flush() throws IOException {
+        writeBlock();
+    }
+
+    @Override
+    public long size() {
+        return this.written + this.length;
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+        if(this.deflater != null)
+            this.deflater.end();
+    }
+
+    private void writeBlock() throws IOException {
+        if(!this.headerWritten) {
+            this.blockHeader.clear();
+            this.blockHeader.put(MAGIC).put(VERSION).put(this.deflater != null ? FLAG_COMPRESSED : 0);
+            writeFully(this.blockHeader, null, 0);
+            this.headerWritten = true;
+        }
+
+        if(this.recordCount == 0)
+            return;
+
+        byte[] payload = this.block;
+        int storedLength = this.length;
+
+        if(this.deflater != null) {
+            this.deflater.setInput(this.block, 0, this.length);
+            this.deflater.finish();
+
+            storedLength = 0;
+            while(!this.deflater.finished()) {
+                if(storedLength == this.compressed.length)
+                    this.compressed = Arrays.copyOf(this.compressed, Math.max(4096, 2 * this.compressed.length));
+                storedLength += this.deflater.deflate(this.compressed, storedLength, this.compressed.length - storedLength);
+            }
+            this.deflater.reset();
+            payload = this.compressed;
+        }
+
+        this.blockHeader.clear();
+        this.blockHeader.putInt(this.length).putInt(storedLength).putInt(this.recordCount);
+        writeFully(this.blockHeader, payload, storedLength);
+
+        this.length = 0;
+        this.recordCount = 0;
+        this.lastTime = 0;
+        this.symbols.clear();
+    }
+
+    private void writeFully(ByteBuffer header, byte[] payload, int payloadLength) throws IOException {
+        header.flip();
+        while(header.hasRemaining())
+            this.written += this.channel.write(header);
+
+        if(payload == null)
+            return;
+
+        ByteBuffer buffer = ByteBuffer.wrap(payload, 0, payloadLength);
+        while(buffer.hasRemaining())
+            this.written += this.channel.write(buffer);
+    }
+
+    private void writeSymbol(String symbol) {
+        symbol = String.valueOf(symbol);
+
+        Integer index = this.symbols.get(symbol);
+        if(index != null) {
+            writeVarLong(index);
+            return;
+        }
+
+        writeVarLong(this.symbols.size());
+        this.symbols.put(symbol, this.symbols.size());
+        writeString(symbol);
+    }
+
+    private void writeString(String string) {
+        writeVarLong(utf8Length(string));
+        ensureCapacity(4 * string.length());
+
+        for(int i = 0; i < string.length(); i++) {
+            char c = string.charAt(i);
+
+            if(c < 0x80)
+                this.block[this.length++] = (byte) c;
+            else if(c < 0x800) {
+                this.block[this.length++] = (byte) (0xC0 | (c >> 6));
+                this.block[this.length++] = (byte) (0x80 | (c & 0x3F));
+            }
+            else if(isSurrogatePair(string, i)) {
+                int codePoint = Character.toCodePoint(c, string.charAt(++i));
+                this.block[this.length++] = (byte) (0xF0 | (codePoint >> 18));
+                this.block[this.length++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                this.block[this.length++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                this.block[this.length++] = (byte) (0x80 | (codePoint & 0x3F));
+            }
+            else if(Character.isSurrogate(c)) {
+                // Lone surrogates cannot be encoded.
+                this.block[this.length++] = '?';
+            }
+            else {
+                this.block[this.length++] = (byte) (0xE0 | (c >> 12));
+                this.block[this.length++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                this.block[this.length++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+    }
+
+    private static int utf8Length(String string) {
+        int length = 0;
+
+        for(int i = 0; i < string.length(); i++) {
+            char c = string.charAt(i);
+
+            if(c < 0x80)
+                length++;
+            else if(c < 0x800)
+                length += 2;
+            else if(isSurrogatePair(string, i)) {
+                length += 4;
+                i++;
+            }
+            else if(Character.isSurrogate(c))
+                length++;
+            else length += 3;
+        }
+
+        return length;
+    }
+
+    private static boolean isSurrogatePair(String string, int index) {
+        return Character.isHighSurrogate(string.charAt(index)) && index + 1 < string.length() && Character.isLowSurrogate(string.charAt(index + 1));
+    }
+
+    private void writeByte(int value) {
+        ensureCapacity(1);
+        this.block[this.length++] = (byte) value;
+    }
+
+    private void writeVarLong(long value) {
+        ensureCapacity(10);
+        while((value & ~0x7FL) != 0) {
+            this.block[this.length++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        this.block[this.length++] = (byte) value;
+    }
+
+    private void ensureCapacity(int extra) {
+        if(this.length + extra > this.block.length)
+            this.block = Arrays.copyOf(this.block, Math.max(this.length + extra, 2 * this.block.length));
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+}
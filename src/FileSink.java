@@ -0,0 +1,244 @@
+/**
+ * GammaConsole (https://github.com/UnexomWid/GammaConsole)
+ *
+ * This project is licensed under the MIT license.
+ * Copyright (c) 2019 UnexomWid (https://uw.exom.dev)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the
+ * following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package me.unexomwid.gammaconsole;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.sql.Timestamp;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Continuously saves the logs of a console in files.
+ *
+ * Logs are handed over to a background thread, which passes them to a buffered {@link LogFileWriter}. The buffer
+ * is written through a FileChannel when it fills up, when a flush is requested, or once per second. A new file is
+ * started when the current one reaches its maximum size or age.
+ *
+ * @author UnexomWid
+ */
+final class FileSink implements Runnable {
+
+    private static final int QUEUE_CAPACITY = 65536;
+    private static final long QUEUE_WAIT_NANOS = 1000000;
+    private static final long IDLE_NANOS = 10000000;
+    private static final long FLUSH_INTERVAL_NANOS = 1000000000;
+    private static final long RETRY_MILLIS = 1000;
+
+    private final GammaLog log;
+    private final File directory;
+    private final LogFileFormat format;
+    private final long maxFileSize;
+    private final long fileInterval;
+
+    private final LogQueue<LogRecord> queue;
+    private final Thread thread;
+    private volatile boolean flushRequested;
+    private volatile boolean closed;
+
+    private FileChannel channel;
+    private LogFileWriter writer;
+    private long fileOpenTime;
+
+    /**
+     * @param log The log whose logs are saved.
+     * @param directory The directory in which to create the files.
+     * @param format The format of the files.
+     * @param maxFileSize The size after which a new file is started, in bytes, or 0 for no limit.
+     * @param fileInterval The time after which a new file is started, in milliseconds, or 0 for no limit.
+     */
+    FileSink(GammaLog log, File directory, LogFileFormat format, long maxFileSize, long fileInterval) {
+        this.log = log;
+        this.directory = directory;
+        this.format = format;
+        this.maxFileSize = maxFileSize;
+        this.fileInterval = fileInterval;
+
+        this.queue = new LogQueue<>(QUEUE_CAPACITY);
+
+        this.thread = new Thread(this, "GammaConsole-file");
+        this.thread.setDaemon(true);
+        this.thread.start();
+
+        // The thread is a daemon, so make sure that the buffered logs reach the disk when the application exits.
+        Runtime.getRuntime().addShutdownHook(new Thread(this::close));
+    }
+
+    /**
+     * Hands a log over to the writer thread. The log is dropped if the writer thread has stopped.
+     */
+    void write(LogRecord record) {
+        while(!this.queue.offer(record) && this.thread.isAlive())
+            LockSupport.parkNanos(QUEUE_WAIT_NANOS);
+    }
+
+    /**
+     * Asks the writer thread to write the buffered logs to the current file. Does not wait.
+     */
+    void flush() {
+        this.flushRequested = true;
+        LockSupport.unpark(this.thread);
+    }
+
+    /**
+     * Writes the remaining logs and closes the current file.
+     */
+    void close() {
+        this.closed = true;
+        LockSupport.unpark(this.thread);
+
+        try {
+            this.thread.join(5000);
+        }
+        catch(InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void run() {
+        long lastFlush = System.nanoTime();
+
+        while(true) {
+            boolean closing = this.closed;
+            int count = 0;
+
+            // A failing log must not stop the thread, or the ingest thread would wait for room forever.
+            try {
+                LogRecord record;
+                while((record = this.queue.poll()) != null) {
+                    count++;
+                    append(record);
+                }
+
+                long now = System.nanoTime();
+                if(closing || this.flushRequested || now - lastFlush >= FLUSH_INTERVAL_NANOS) {
+                    this.flushRequested = false;
+                    flushFile();
+                    lastFlush = now;
+                }
+            }
+            catch(Exception ex) {
+                ex.printStackTrace();
+            }
+
+            if(closing) {
+                closeFile();
+                return;
+            }
+
+            if(count == 0)
+                LockSupport.parkNanos(IDLE_NANOS);
+        }
+    }
+
+    private void append(LogRecord record) {
+        // If a file cannot be created, wait a bit before trying again.
+        if(this.writer == null ? System.currentTimeMillis() - this.fileOpenTime >= RETRY_MILLIS : isFileFull())
+            rollFile();
+
+        if(this.writer == null)
+            return;
+
+        try {
+            this.writer.write(record);
+        }
+        catch(IOException ex) {
+            ex.printStackTrace();
+            closeChannel();
+        }
+    }
+
+    private boolean isFileFull() {
+        return (this.maxFileSize > 0 && this.writer.size() >= this.maxFileSize)
+            || (this.fileInterval > 0 && System.currentTimeMillis() - this.fileOpenTime >= this.fileInterval);
+    }
+
+    private void rollFile() {
+        closeFile();
+        this.fileOpenTime = System.currentTimeMillis();
+
+        try {
+            this.channel = FileChannel.open(createFile(this.directory, this.format).toPath(), StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+            this.writer = this.format.createWriter(this.channel, this.log);
+        }
+        catch(IOException ex) {
+            ex.printStackTrace();
+            closeChannel();
+        }
+    }
+
+    /**
+     * Creates the path of a new log file, named after the current timestamp.
+     *
+     * @param directory The directory of the file. It is created if it does not exist.
+     * @param format The format of the file.
+     */
+    static File createFile(File directory, LogFileFormat format) {
+        String name = new Timestamp(System.currentTimeMillis()).toString().replace(' ', '_').replace(':', '-') + "_log";
+
+        File file = new File(directory, name + format.extension);
+        for(int i = 1; file.exists(); i++)
+            file = new File(directory, name + "_" + i + format.extension);
+
+        directory.mkdirs();
+        return file;
+    }
+
+    private void flushFile() {
+        try {
+            if(this.writer != null)
+                this.writer.flush();
+        }
+        catch(IOException ex) {
+            ex.printStackTrace();
+            closeChannel();
+        }
+    }
+
+    private void closeFile() {
+        try {
+            if(this.writer != null)
+                this.writer.close();
+        }
+        catch(IOException ex) {
+            ex.printStackTrace();
+        }
+
+        closeChannel();
+    }
+
+    private void closeChannel() {
+        try {
+            if(this.channel != null)
+                this.channel.close();
+        }
+        catch(IOException ex) {
+            ex.printStackTrace();
+        }
+
+        this.channel = null;
+        this.writer = null;
+    }
+}
@@ -0,0 +1,182 @@
+/**
+ * GammaConsole (https://github.com/UnexomWid/GammaConsole)
+ *
+ * This project is licensed under the MIT license.
+ * Copyright (c) 2019 UnexomWid (https://uw.exom.dev)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the
+ * following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package me.unexomwid.gammaconsole;
+
+/**
+ * A named channel of a log, such as the logs of a subsystem. The logs printed on a channel go through the same
+ * ingest thread and store as every other log, and a console shows each channel in its own tab.
+ *
+ * Channels are created by {@link GammaLog#getChannel(String)}.
+ *
+ * @author UnexomWid
+ */
+public final class GammaChannel {
+
+    private final GammaLog log;
+    private final String name;
+
+    GammaChannel(GammaLog log, String name) {
+        this.log = log;
+        this.name = name;
+    }
+
+    /**
+     * Gets the name of the channel.
+     */
+    public String getName() {
+        return this.name;
+    }
+
+    /**
+     * Gets the log that the channel prints to.
+     */
+    public GammaLog getLog() {
+        return this.log;
+    }
+
+    /**
+     * Prints verbose text.
+     *
+     * @param text The text to print.
+     */
+    public void printVerbose(String text) {
+        printVerbose(text, "VERBOSE");
+    }
+
+    /**
+     * Prints debug text.
+     *
+     * @param text The text to print.
+     */
+    public void printDebug(String text) {
+        printDebug(text, "DEBUG");
+    }
+
+    /**
+     * Prints info text.
+     *
+     * @param text The text to print.
+     */
+    public void printInfo(String text) {
+        printInfo(text, "INFO");
+    }
+
+    /**
+     * Prints warning text.
+     *
+     * @param text The text to print.
+     */
+    public void printWarning(String text) {
+        printWarning(text, "WARNING");
+    }
+
+    /**
+     * Prints error text.
+     *
+     * @param text The text to print.
+     */
+    public void printError(String text) {
+        printError(text, "ERROR");
+    }
+
+    /**
+     * Prints verbose text.
+     *
+     * @param text The text to print.
+     * @param caller The caller of the method.
+     */
+    public void printVerbose(String text, String caller) {
+        this.log.print(LogLevel.VERBOSE, text, caller, this.name);
+    }
+
+    /**
+     * Prints debug text.
+     *
+     * @param text The text to print.
+     * @param caller The caller of the method.
+     */
+    public void printDebug(String text, String caller) {
+        this.log.print(LogLevel.DEBUG, text, caller, this.name);
+    }
+
+    /**
+     * Prints info text.
+     *
+     * @param text The text to print.
+     * @param caller The caller of the method.
+     */
+    public void printInfo(String text, String caller) {
+        this.log.print(LogLevel.INFO, text, caller, this.name);
+    }
+
+    /**
+     * Prints warning text.
+     *
+     * @param text The text to print.
+     * @param caller The caller of the method.
+     */
+    public void printWarning(String text, String caller) {
+        this.log.print(LogLevel.WARNING, text, caller, this.name);
+    }
+
+    /**
+     * Prints error text.
+     *
+     * @param text The text to print.
+     * @param caller The caller of the method.
+     */
+    public void printError(String text, String caller) {
+        this.log.print(LogLevel.ERROR, text, caller, this.name);
+    }
+
+    /**
+     * Prints an exception, shown as a one-line summary whose stack trace can be expanded. The trace is only
+     * formatted when it is needed, and a repeated exception shares the trace of the previous one.
+     *
+     * @param throwable The exception to print.
+     */
+    public void printError(Throwable throwable) {
+        printError(throwable, "ERROR");
+    }
+
+    /**
+     * Prints an exception, shown as a one-line summary whose stack trace can be expanded.
+     *
+     * @param throwable The exception to print.
+     * @param caller The caller of the method.
+     */
+    public void printError(Throwable throwable, String caller) {
+        this.log.printError(null, throwable, caller, this.name);
+    }
+
+    /**
+     * Prints error text, followed by the stack trace of an exception, which can be expanded.
+     *
+     * @param text The text to print.
+     * @param throwable The exception to print.
+     * @param caller The caller of the method.
+     */
+    public void printError(String text, Throwable throwable, String caller) {
+        this.log.printError(text, throwable, caller, this.name);
+    }
+}
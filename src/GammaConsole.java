@@ -28,47 +28,227 @@
 package me.unexomwid.gammaconsole;
 
 import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.event.HyperlinkEvent;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.DefaultHighlighter;
+import javax.swing.text.DefaultStyledDocument.ElementSpec;
+import javax.swing.text.Element;
+import javax.swing.text.Highlighter;
+import javax.swing.text.StyleConstants;
+import javax.swing.text.html.HTML;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.awt.event.MouseEvent;
 import java.io.File;
-import java.io.FileOutputStream;
-import java.sql.Timestamp;
-import java.time.LocalTime;
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Base64;
-import java.util.concurrent.TimeUnit;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 public class GammaConsole extends JFrame implements Runnable {
 
-    private int logCount;
     /**
-     * Gets the amount of printed logs.
+     * Gets the amount of logs printed (or loaded) since the console was last cleared.
      */
     public int getLogCount() {
-        return this.logCount;
+        return this.log.getLogCount();
     }
 
     /**
-     * Whether to print the full timestamp for each log, or just the hour, minute and second.
+     * Whether to print the full timestamp for each log, or just the hour, minute and second. When the console is
+     * shown, this also applies to the saved logs.
      */
     public boolean fullTimestamp;
 
-    private int textSpacing;
     /**
      * Gets the amount of spaces to write between the timestamp and the message.
      */
     public int getTextSpacing() {
-        return this.textSpacing;
+        return this.log.getTextSpacing();
     }
     /**
      * Sets the amount of spaces to write between the timestamp and the message.
      */
     public void setTextSpacing(int textSpacing) {
-        this.textSpacing = textSpacing;
-        this.halfTextSpacing = this.textSpacing / 2;
+        this.log.setTextSpacing(textSpacing);
     }
 
-    private int halfTextSpacing;
+    /**
+     * Gets whether the name of the thread that printed each log is shown after its caller.
+     */
+    public boolean isThreadNameVisible() {
+        return this.log.isThreadNameVisible();
+    }
+    /**
+     * Sets whether to show the name of the thread that printed each log after its caller, in the console and in the
+     * saved HTML files.
+     *
+     * @param threadNameVisible Whether to show the name of the thread that printed each log.
+     */
+    public void setThreadNameVisible(boolean threadNameVisible) {
+        this.log.setThreadNameVisible(threadNameVisible);
+    }
+
+    private boolean virtualized;
+    /**
+     * Gets whether the logs are shown in a virtualized list, which only renders the visible rows.
+     */
+    public boolean isVirtualized() {
+        return this.virtualized;
+    }
+    /**
+     * Sets whether to show the logs in a virtualized list, which only renders the visible rows. HTML messages are
+     * shown as plain text in this view.
+     *
+     * @param virtualized Whether to show the logs in a virtualized list.
+     */
+    public void setVirtualized(boolean virtualized) {
+        this.virtualized = virtualized;
+    }
+
+    private boolean statusBarVisible;
+    /**
+     * Gets whether the status bar, which shows the metrics of the log, is visible.
+     */
+    public boolean isStatusBarVisible() {
+        return this.statusBarVisible;
+    }
+    /**
+     * Sets whether to show a status bar with the metrics of the log: the rate of logs, the queue depth, the time
+     * from printing a log to showing it, the time spent on each flush, and the kept logs.
+     *
+     * @param statusBarVisible Whether to show the status bar.
+     */
+    public void setStatusBarVisible(boolean statusBarVisible) {
+        this.statusBarVisible = statusBarVisible;
+    }
+
+    /**
+     * Gets the maximum amount of logs kept in the console.
+     */
+    public int getMaxLogCount() {
+        return this.log.getMaxLogCount();
+    }
+    /**
+     * Sets the maximum amount of logs kept in the console. When the limit is reached, the oldest logs are discarded.
+     *
+     * @param maxLogCount The maximum amount of logs kept in the console.
+     */
+    public void setMaxLogCount(int maxLogCount) {
+        this.log.setMaxLogCount(maxLogCount);
+    }
+
+    /**
+     * Gets the maximum size of the logs kept in the console, in bytes (0 means no limit).
+     */
+    public long getMaxLogSize() {
+        return this.log.getMaxLogSize();
+    }
+    /**
+     * Sets the maximum size of the logs kept in the console, in bytes. When the limit is reached, the oldest logs are discarded.
+     *
+     * @param maxLogSize The maximum size of the logs kept in the console, in bytes, or 0 for no limit.
+     */
+    public void setMaxLogSize(long maxLogSize) {
+        this.log.setMaxLogSize(maxLogSize);
+    }
+
+    /**
+     * Gets whether the logs discarded from memory are kept in temp files.
+     */
+    public boolean getFullHistory() {
+        return this.log.getFullHistory();
+    }
+    /**
+     * Sets whether the logs discarded from memory are kept in memory-mapped temp files. They can still be scrolled
+     * to in the virtualized view, searched and saved.
+     *
+     * @param fullHistory Whether to keep the logs discarded from memory in temp files.
+     */
+    public void setFullHistory(boolean fullHistory) {
+        this.log.setFullHistory(fullHistory);
+    }
+
+    /**
+     * Gets the directory in which the logs are continuously saved, or null if they are only saved by save().
+     */
+    public File getLogDirectory() {
+        return this.log.getLogDirectory();
+    }
+    /**
+     * Sets the directory in which the logs are continuously saved, as they are printed.
+     *
+     * @param logDirectory The directory in which the logs are saved, or null to only save them when save() is called.
+     */
+    public void setLogDirectory(File logDirectory) {
+        this.log.setLogDirectory(logDirectory);
+    }
+
+    /**
+     * Gets the size after which a new log file is started, in bytes (0 means no limit).
+     */
+    public long getMaxLogFileSize() {
+        return this.log.getMaxLogFileSize();
+    }
+    /**
+     * Sets the size after which a new log file is started, in bytes.
+     *
+     * @param maxLogFileSize The size after which a new log file is started, in bytes, or 0 for no limit.
+     */
+    public void setMaxLogFileSize(long maxLogFileSize) {
+        this.log.setMaxLogFileSize(maxLogFileSize);
+    }
+
+    /**
+     * Gets the time after which a new log file is started, in milliseconds (0 means no limit).
+     */
+    public long getLogFileInterval() {
+        return this.log.getLogFileInterval();
+    }
+    /**
+     * Sets the time after which a new log file is started, in milliseconds.
+     *
+     * @param logFileInterval The time after which a new log file is started, in milliseconds, or 0 for no limit.
+     */
+    public void setLogFileInterval(long logFileInterval) {
+        this.log.setLogFileInterval(logFileInterval);
+    }
+
+    /**
+     * Gets the format in which the logs are saved.
+     */
+    public LogFileFormat getLogFileFormat() {
+        return this.log.getLogFileFormat();
+    }
+    /**
+     * Sets the format in which the logs are saved, both by save() and in the log directory.
+     *
+     * @param logFileFormat The format in which the logs are saved.
+     */
+    public void setLogFileFormat(LogFileFormat logFileFormat) {
+        this.log.setLogFileFormat(logFileFormat);
+    }
+
+    /**
+     * Sets all the colors of the console.
+     *
+     * @param theme The colors of the console.
+     */
+    public void setTheme(GammaTheme theme) {
+        this.backgroundColor = theme.getBackgroundColor();
+        this.textColor = theme.getTextColor();
+        this.log.setBorderColor(theme.getBorderColor());
+        this.log.setDebugColor(theme.getDebugColor());
+        this.log.setInfoColor(theme.getInfoColor());
+        this.log.setWarningColor(theme.getWarningColor());
+        this.log.setErrorColor(theme.getErrorColor());
+        restyle();
+    }
 
     private Color backgroundColor;
     /**
@@ -84,6 +264,7 @@ public class GammaConsole extends JFrame implements Runnable {
      */
     public void setBackgroundColor(Color backgroundColor) {
         this.backgroundColor = backgroundColor;
+        restyle();
     }
 
     private Color textColor;
@@ -100,14 +281,14 @@ public class GammaConsole extends JFrame implements Runnable {
      */
     public void setTextColor(Color textColor) {
         this.textColor = textColor;
+        restyle();
     }
 
-    private Color borderColor;
     /**
      * Gets the color of the border between the lines.
      */
     public Color getBorderColor() {
-        return this.borderColor;
+        return this.log.getBorderColor();
     }
     /**
      * Sets the color of the border between the lines.
@@ -115,15 +296,15 @@ public class GammaConsole extends JFrame implements Runnable {
      * @param borderColor The color of the border between the lines.
      */
     public void setBorderColor(Color borderColor) {
-        this.borderColor = borderColor;
+        this.log.setBorderColor(borderColor);
+        restyle();
     }
 
-    private Color debugColor;
     /**
      * Gets the color for Debug messages.
      */
     public Color getDebugColor() {
-        return debugColor;
+        return this.log.getDebugColor();
     }
     /**
      * Sets the color for Debug messages.
@@ -131,15 +312,15 @@ public class GammaConsole extends JFrame implements Runnable {
      * @param color The color for Debug messages.
      */
     public void setDebugColor(Color color) {
-        this.debugColor = color;
+        this.log.setDebugColor(color);
+        restyle();
     }
 
-    private Color infoColor;
     /**
      * Gets the color for Info messages.
      */
     public Color getInfoColor() {
-        return infoColor;
+        return this.log.getInfoColor();
     }
     /**
      * Sets the color for Info messages.
@@ -147,15 +328,15 @@ public class GammaConsole extends JFrame implements Runnable {
      * @param color The color for Info messages.
      */
     public void setInfoColor(Color color) {
-        this.infoColor = color;
+        this.log.setInfoColor(color);
+        restyle();
     }
 
-    private Color warningColor;
     /**
      * Gets the color for Warning messages.
      */
     public Color getWarningColor() {
-        return warningColor;
+        return this.log.getWarningColor();
     }
     /**
      * Sets the color for Warning messages.
@@ -163,15 +344,15 @@ public class GammaConsole extends JFrame implements Runnable {
      * @param color The color for Warning messages.
      */
     public void setWarningColor(Color color) {
-        this.warningColor = color;
+        this.log.setWarningColor(color);
+        restyle();
     }
 
-    private Color errorColor;
     /**
      * Gets the color for Error messages.
      */
     public Color getErrorColor() {
-        return errorColor;
+        return this.log.getErrorColor();
     }
     /**
      * Sets the color for Error messages.
@@ -179,74 +360,256 @@ public class GammaConsole extends JFrame implements Runnable {
      * @param color The color for Error messages.
      */
     public void setErrorColor(Color color) {
-        this.errorColor = color;
+        this.log.setErrorColor(color);
+        restyle();
     }
 
-    private JTextPane textPane;
+    private JList<LogRecord> list;
+    private LogListModel listModel;
     private JScrollPane scrollPane;
     private JScrollBar verticalScrollBar;
     private JButton saveButton;
     private JButton clearButton;
+    private JTextField searchField;
+    private JButton previousButton;
+    private JButton nextButton;
+    private JLabel searchLabel;
+    private JCheckBox[] levelBoxes;
+    private JTextField callerField;
+    private JLabel callerLabel;
+    private JLabel droppedLabel;
+    private JLabel statusLabel;
+    private Timer statusTimer;
+    private LogTimelineStrip timelineStrip;
+    private JTabbedPane channelTabs;
 
-    private StringBuilder contentString;
-    private boolean ready;
+    /**
+     * The view of each channel tab, or null for the tabs that were not selected since the filter last changed.
+     */
+    private ArrayList<LogView> views;
+    private LogView view;
+
+    /**
+     * The icon of the window, as a Base64 PNG.
+     */
+    private static final String ICON = "iVBORw0KGgoAAAANSUhEUgAAAIAAAACACAYAAADDPmHLAAAABGdBTUEAALGPC/xhBQAAAAlwSFlzAAAOwgAADsIBFShKgAAAABh0RVh0U29mdHdhcmUAcGFpbnQubmV0IDQuMS41ZEdYUgAAFX9JREFUeF7tnQd4VMXax7dl00Oyu+mEEiAhISGkCAESEjC0AAHEeq2fevV65Vqvem1XEQsKNrhSRLCDoAhICRCkiFJCl95CCQmkQAJSU/b/vTNnI7CMsCuwh3t3/s/ze+DZzDn7nuedM/POzDuzGikpKSkpKSkpKSkpKSkpKSkpKSkpKSkpKSkpKSkpKSkpKSkpKSkpKSkpKSkpKSkpN1YMIPnzQKO5ImxeUFGCh5I4jr1DncXmBRUleCiJ49g71FlsXlBRgoeSOI69Q53F5gUVJXgoiePYO9RZbF5QUYKHkjiOvUOdxeYFFSV4KInj2DvUWWxeUFGCh5I4jr1DncXmBRUleCiJ49g71FlsXlBRgoeSOI69Q53F5gUVJXgoiePYO9RZbF5QUYKHkjiOvUOdxeYFFSV4KInj2DvUWWxeUFGCh5I4jr1DncXmBRUleCiJ49g71FlsXlBRgoeSOI69Q53F5gVVxYyQqIfqEhklcR2qS2SUxHWoLpFREtehukRGuQ06rfhzF6K6REa5BWHBHohp5olYopGfTljGBYhkJMyEF6FlH1xLiYxyG7y9tLi5exDeerwxbs4JQqhJ5+pWoUH+RCc/X92zpkDDJPr/cmIKYSKuqURGuRUGvQYxTT0x6l9NMH9UE9yR443QQK2w7DXAZPTQ3mYOMnzVMdW/9O93hdUmxfke1us0c+lvNxPXXCKj3JLIEA+88GAY1k+KwaRXgnFbthca+YjLXi2CAg3LH7gjrHrFzHZ1346KqeuU4r/Pw6B9j/7WmnCJhIa5K0aDFu88HYVN38Zj3adRGHKfH2Kirk18cGNGIAomJdbtXZqGCa9Hn4kKMxbS5/cQAYTLJDTOnfHz0eGtp6Kwf35bbPq6Ob75twlpsQZ4eYjL/xn+cX8Ejm1OR/kvaRj+VNQJ+ow1+RmEyyU00N1pEmHE6FebY9/8dtgxLQb5b1twe7ansKwzhNLI4/P3YnF4eRq2zGyLu/taijyN2k/pb6zJ1xMul9BQiQbNm3hi+phYlC5Jwb7ZCVj+UTDu7eklLOsI5kA9fpqSiLJlqdg5Owl39TVDq9V8QX9rSagmobESDXMOMtoHYOX3bXFoaQr2/BCHNZ+E48mbfRDcyLlRQl53E7bOS0bp4hSs/zYRD98SAm9Pfo9QQlVdZKzkQm7tZ0Hp6vZUCVKxd04CVo2LwPN3+MLXS1z+fNgQ8+mHInFsQweU/JiCTd8n4m+3BMNLcT5DdV1gsORiWFD48hNNULkhHWUUtO3PT8TyseF49nZfYfkGfOm6ie/FoHRZCg6S8w8uTMZdfcz25VSXvUFOMW3atGuK6DvVIDLMiClj43BmVwZVglTsy0/AehomPpDrLSwf3cQLX7zbAkX5bbjj98xth9cejYQpQG9fVnXZG+QUIqddTUTfqRapbf3wa0Eqzu7pjENLqDuYm4iNn0YiodmFTm0e5YkZH8di8+QmWD8hAkUUQM74oBV8zjX756O6REY5jMhpVxPRd6qFTqfB3YNCULahI28JDv9ELQFVgp8+CkdslJ4Hjazc+GEtsHN6NArHBGPlRxbMGRGO1HhxS0GoLpFRDiNy2tVE9J1qM2FEDOoPdMGp7dQSUGBYPD8J04aGIKWlAY/dacKOac3J+RasIucvfjcIeZ0uOX+gukRGOYzIaVcT0XeqjTnQgK1L0mAtzsLJbZ34PEHRrDaY/LIJ3ZKNGPdkAHf+8pFmjBzsd7n1BNUlMsphRE67moi+83ogo0MAjlELwFqC3zZ35OP7ndNb47m/+KNnmhE/vB6ESS8GIir4svMFqktklMOInHY1EX3n9YCfrx5fj24DHO4BHMzGsY0debS/bWo07uvljXt7eOH2rg5NHasukVEOI3La1UT0ndcLnTqYsHllT1jLclG3vwuq1nXAgYIk/DS6MdJi9I4uHqkukVESBwjw0+P1lxJQd/QWoPRG1BZ1QcWKG7B3TiIm/ssEf2/xdXaoLpFRksvg6aHFU/dFIK9nKDb+0hOo7MeDwjM7M3CIhofbpsVg8AAf4bV2qC6RUZJL4OOtxxP/1xi75yRh+LPN8NwTrXG8eCBQ0YcqQTYPCg/Mb4tZb1nQKd4gvMd5qC6RUZJLcGN2CMq3d+fDv7VTE5HSxh8rfsyBtYq6AgoK6ykeKF+ehk1fNcF/HgtAuOmSIwHVJTJK8gf4+xkw97tM1B/qicpV7bFvfjLefqY5Bj/UEtbq26gr6A8rjQpqijKxLz8ehaODkdfxf3giyJ1gU70D+0bi9KE8WEuycHxjum2hJwkDe4Vg2fwbqRW4lbcCLB44vrEDbwW+fzUQoUF/2AqoLpFREgHhYV407OtFw75eqNmdibJlaShe0A57Z7dBXnYgBvWPRM0RqgCVeXxuoJZageKFiSgcG4oh9/rCVzwqUF0ioyQCnnuyNWrKB6L+YFdUraEx/7y22DypGUY+HogQkx4R4V5Ymt8NqKZYoKw3tRIUEG5Kx5ZJTTHvbRPatxYGhKpLZJTEjthW/ijfQ/17eS7O0pvNmv4d37VCwTtBiAo+lzb+LI0I6qooFmABIbUUbIKoZFFbrBptwZB7fKHXXXRv1WVvkMQO1ve/9mICzpbfBJR2w/Ff03nTv35iBIY96Acv47myLaN9sXNdLnDsXEB4jGKBzdQKFAw3ISfZ44J7E6rL3iCJHSzyL1zSncb5/VB/IIvP9hX9EI/F75uRlXShQ1nOwAfDklF3lGKBqpv5DCEbERxYkIjVY0Mw9D4/eOgvuL/qOt8YiYCH72+BU4dvgvVQD5ze0RkHf0ymfr0Z3n/U396ZnPQbTDi8awDFAtQKUDdgpUrDWoGtdM1C6jISm1+QQaS6zjdGYkdkuDd2b8yF9QgFf8XZ9PanYT8Ff4XjwpCZKJ7l8/LSoWBmljIvcKQ/HxGwVmB/fjxWfGTBk4MumCJWXecbI7HjwXujUcuacwr+2Dx/yeIU7JoRiy+eC4CHQXwN6wYG/7UV6nkwyLqBbjxvoGrtDXxeYMl7JjQN/T1wVF0XGC85hze9ybO/zeQRvZX68up1HVBc0A6rJzTmSR/M0aLrGM2b+KBkR57SChzuySeGTu/szDeXsFagX/rvs4OqbAc7XxcYLjkHm/OvKBoAa+UA1NJwjiWB7p7eGjNfNyHCculMHz8/Pb4cn65UgIq+vBtgrUDFilRsoNHDmMf9YVRaEAuhqi4yXsLefj0mTSAH8gWensoK34IkbPy8MZ/V0wuCP3syO1twuoy6gKMDeQVgrcCJrR2xc1orzHrD1BBA9iRU1UWGSzSIj/NHyXZqwo8OorE8Df1W0tBvdhssG2lBRsJFY3khbVoH4CDdg08KURfCp4f3ZaJ0STusGR+GR/t7wdtT8zKVVVVC492d55+Ow9kK6vvL+/A5fbb0u2Vyc57xG+gnvkbE5E87UjdAQWRZb1sr0AVH17THtiktMPGZRqwCfEflGhGqSWi4OxPYyAPzp3chx1EFONQd1RvS+X7A1R+H4ZYsx88IYEHiM4/HKpNCR28CSrryboBtKtk/LwHLPrQgO8mjlMqqcjBEg4TGuzOd082op+DNSk6r25/F3/7dM1tjwTtBaBri3HExnTqYUbl3oBJL2LoBljBStiwFGz6NxIO53tVU7nlCtdGA0HB3hs3717Jl3bJcZeZvETX/k5pj+EN+DZG7w1jMRixfmKOMBspzfw8G2XrCzu9a4d1H/H+jcjOJYEIVCQ13V1izPX1yhjL2P5TDHXVgfhIKP47AwAwjtIJrLsfE0e2VOKBSmRUEBZW8G8hPwNxhlrqmobqDVC6BUEVCo90VH28ddq3vw2fw+NQvRf/75iZg+lATGvmKr7kcj/89BjVHqAs4SkPCkm68EtTspcByEVtRjETv9sZjVO42QhUJjXZX+vQKx4lSGvpV9KUhWxd+NMy2KdEYer8vP+1DdM3lyM4Mxm8lFATy0UBPXgHqaDh4eGkqH1n8+x7fGm+jZgSVvebHwookNNpdYUu5LK+PpX2d2taJT/6so7f0vis4HCq6mS9Kd+XZcgT68QrAlpXZ1PLO72Mw6/Uga4RZl09lXXo+YIOERrsjZpMRm1jOH5/778a3erH9/ytHByPhwiVcp2DDyl/ZffnqIJsVVIaDp7Z3wt458fh5lMXappl+I5WNIFwuodHuSNs2jXjaFxuzs7w/lvjBhn+TXwqCyf+yu3z/EKOHFp+Pa29bHaRYoLwvcKg7aikOKPkxCWs+DrV2SzaWUdk+hMu7AaHR7kjf3uE4xebu6S1liz98i9fUlnjlHt8rOkFcr9fisUdsy8OsFWBzDFWDqJJl8w0kGz9rjL/18z5NZV8iXC6h0e7IU/+IofE/vaFHBvDEz5JFyVj/eVMM6Oz47N8fkdsjHL9RcMnjAIJ3MzTMrOLTwtF4436/Gir3LcF+I8ClEhrsjox5P1XppyvzcHIrBYAF7bBiXDg6xF12f99l6ZBmQvVB20iAQ5WgrDdPL2c5AhOeaVTvZdQUUNlAwqUSGuxuGI1azJqSySsAGwKyCSB2FNyP71nQKvLKTws3BXngwFbq+3kXQK0MVQIrVbTq9RRozknA96+ZKc7QbKKyLg8EhQa7G74+evw8v5tSAcr7oGqt8mbmDzMh7NKbOx3C39+AwsU5SgWg/p93BRRrnNjSGfvnJWLBiGBruFm7jcrGEi6V0GB3w2IxYu1P3ZUKUJaLI6tvwHYKAGcOveS+Podh6WVL57JdQ8zxtozho4NwclsGihe2w5JRoUhuaaigsmmESyU02N2ICPfErvVsrM4mgXL5FPDWyc0x/bWrUwHY5pIfvlG6GL53kMUBFAie2pGF4oJkrBgbwWINNhTsSrhUQoPdDXYU7PZCaqKpaa4/nIvyX1Kx6csmmP1G4OX29zvMuA8agsx+VAEoDqAKcGZ3NrUAyTzRtHuqsYqGmzlU1qUSGutuBPjrsXXljdxB9WV9cHiZcsDD3DcDnc4BEMFyCD8ZdQOfZubLwrYW4PSuLL7RZNX4SHRPMbJfDsklXCqhwe5GeIgHNizryruA+rK+/FTwTV81xbxhgWh2Lof/ivh0TPtzFYDNCFIrwCoATzX/JAJdk/mqoMuTRIXGuhsWkwHrl7LdPFQByvvyHUAsBlg0IghxTa68Anh4aDHm/RQ+AcS2izW0ACcpBtg/LwlLPwxBZqIHCwJlDKAGzEHL8jN4F2Ct6I+jazpg+7ctsewDEzISHcsCvhyTJ6bDynIC2OGSVAFYZTixNQNFs+Ow8F2LNSqEJ4akElKuVojZY/y0L9KsvALw8XlH7J4Zh+WjLLi3hzdL22Lp2392ocabmLJgRtYZK9sjcOhGnh1krchD9bqOfCp4zpt8SXgnlYvjV0i5XCETRiWfYgs2bKHmzJ5MftTb6o9D8cJffGu9jJoxVMZDKeq0zBazZ8GeX/tYrRVKPgBPCjmQxWMNlhw66cXAOiq3llAtN9DtNfTF+HEN+/rrDnSlkUAqfv0iChP+GVDn562ZTUV8lZLOSafTtEhLDtpVuXeAle0yYs5n+QA1RRkUALbFmnGhGDnYv5aaF7YWoEpSiBQFXzfnRZzgW7mob7aWKJtBd06LwYLhJmu4SbuBysQoRZ2TwaB9+IV/xh+vO8JyApXUcJ4ZvDEdu2fE8uNjnr3Nh60GDiNUSQuT0mjaJcb5lx7c3s/Kp2nLe+PUjs4oXpCE1ePCcHeO13EPPf9ZV2cVZjEZ8+d9n1WrZAVnKc2/7TBJ1v//MtKM27I9q6hsL+USKTVk9vHRT1q1OOekkrvXH/X0lrLhIDsNZOwTATU+nprJrJxS3DHp9dqbUpKCjlTsybOyLKCGt5/92sjBhUpW8MIRJiQ0M7CVwEjlKik1pKWh4JPvvNb2ZN1RqgC8G+iGMzuV1bqCERZrl0QPtotnoFLcIbE9f1N++Cajlq0wMufzt39fJk83K5oVjzVjQ/D+I/4I8NFMpbIGfpWUakptGe33c0XRgHreChzuxd9W1lRvn9oCbz3oX0+tANvM6Uik7qPTal4c/FDL32rKB/DK1PD2s63mbP6fbRP/+UMzbs3yOkLln1Uuk1JTnp5G3ZRpX3Wu4fl7lXncYcpmziSsmxBpHZTpySZrXiX8+RV/IHJ+ZliwsWjXuh61KM353fl1+7rwdQY2/fvr51GY/UaQtVmYrpguSVGulFJTLAIf1LG9edvx0kF1fMWO+m0WC7AU8V3TY2lEYK6Lb6rfTeUe4ldcLHaPnPgWnmvnfZlYX1fc9femn92nep3tfOFZcSgcG4wX7/T9jVqV0XTNn51jkLrK8ggL9Zo/5bOOdUoWL1WCyn6o3dsFFewn3ykgXPSuqb5ZqL7Qw6B5ksqzfp453UgE6nWaeyyBhvkfDW1xsGZvF2uD89nbz84IYodM7ctviw2fRWL6kKD6JiG6LXRdJ0LqOlK3zE6WktId/a08FmDz9lQJavZQ8LY8BZu/aoovXwiq6dPBWG3Qa2ZQ+SHEWFOAbkHODd7VBZ/EnqayVuZ0pQJkof6AEvixt58tM7OflbuThpZ0HRv7uzwTWOrS8iPeHvpyYiVP4Dh2u9ISlPXi+wXZoY/758VjxYRm1v88HVL3wn3BNf9+KOzY1OHRZzfPSORbys45X2n62aQP6/e3fhPNf0NgwtONztLbv5K+509NLklde8V5eepmLJ7btcrKWwGlO2B7BtnPwrBDHliTXrW2PcqWpfJp4yOF7XGWAsbznc/+f3Z3Bt9jwPYBriLnf/dKINsKVknfcZfyVVLXqwb6+OgXbSnsfZwdF6Nk9NK/bExvO+6FHQPLZvXY4U9sw2eD4xtg278ahpHst4QXDg9C33RjFXUdbNjHVgmlrmPpiFezOgevOVF6U72VnfrJWwKCHQFrG94pXOh8Vjm481ekYcd3LbF6XAjmvhVUQ87fR/d8kzCxL5C6/uVDDOnWJaS0eEtuPd/dy1oBW0YPz/Ble/4Pd+fnCbJKwfp81uyXLknmSSVsseeblwJP+vtoV9NwYSjdz+W7f6SuTGF6vXbIA/dEV65b2tVae6i3tb5iAE8f40e/8FZByfCpLc1FFY31WS4B+zWRhe+arW8+4HcywqxbQvcZTLAAU+q/UL5UCZ5pExewbe7UTrXFP3dA9aZsnC3JQ135ILCl3jMl/VG5ujN2z4hD4fhI68jB/vU5KR5V9NZ/SddnKbeR+m8WO8otJyLca0qPTNOeR28Prfz67Vb1Cye2sf4yOQkLPomvH/9S47q/5vmfahttKA1upGWnf91EsLUDNlkk9T8iNnHDTvV6wMdLN8wSqB8bZjF8YmqkH2U0aD6gzx+2/V1O8EhJSUlJXRtpNP8PEq1z2xREuaYAAAAASUVORK5CYII=";
+    private Image icon;
+    /**
+     * Whether the resources of the window were prepared, and whether the window was asked to be shown. The window
+     * is built once both happened. Only used on the EDT.
+     */
+    private boolean prepared;
+    private boolean showRequested;
+    /**
+     * The editor kit of every view. Restyling it restyles all of them.
+     */
+    private LogEditorKit editorKit;
+
+    private static final String EMPTY_DOCUMENT = "<html><head></head>";
+    /**
+     * The links after the message of a log with a stack trace, which expand and collapse the trace.
+     */
+    private static final String EXPAND_LINK = " <a href=\"expand\">[+]</a>";
+    private static final String COLLAPSE_LINK = " <a href=\"collapse\">[-]</a>";
+    private volatile boolean styled;
+    private volatile boolean restyleScheduled;
+
+    static final Color SEARCH_COLOR = new Color(255, 200, 0);
+    private static final Highlighter.HighlightPainter SEARCH_HIGHLIGHT = new DefaultHighlighter.DefaultHighlightPainter(SEARCH_COLOR);
+
+    private final GammaLog log;
+    final LogFormatter formatter;
 
+    private final Object storeLock;
+    private LogStore store;
+    private String searchQuery;
+    private long searchSequence;
+    private boolean flushScheduled;
+
+    /**
+     * The parsed HTML messages, as the element specs of the inside of a row. It holds as many messages as the log
+     * keeps, with the least recently shown ones evicted first.
+     */
+    private final LinkedHashMap<String, ElementSpec[]> parsedMessages;
+    private final StringBuilder line;
+
+    /**
+     * Creates a console with its own log.
+     */
     public GammaConsole() {
-        initializeWindow();
+        this(new GammaLog());
+    }
+
+    /**
+     * Creates a console that shows a log, which may already be running. When the console is shown, it replays the
+     * logs that the log still keeps.
+     *
+     * @param log The log to show.
+     */
+    public GammaConsole(GammaLog log) {
+        this.log = log;
+        this.formatter = log.formatter;
+        this.storeLock = log.storeLock;
+        this.searchSequence = -1;
+        this.line = new StringBuilder();
+        this.parsedMessages = new LinkedHashMap<String, ElementSpec[]>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, ElementSpec[]> eldest) {
+                return this.size() > log.getMaxLogCount();
+            }
+        };
+
         initializeFields();
-        ready = false;
+
+        // The window itself is only built when it is shown.
+        Thread preparation = new Thread(this::prepare, "GammaConsole-prepare");
+        preparation.setDaemon(true);
+        preparation.start();
     }
 
+    /**
+     * Gets the log that the console shows.
+     */
+    public GammaLog getLog() {
+        return this.log;
+    }
+
+    /**
+     * Starts the log, then shows the window. The log takes the logs right away, so printing never waits for the
+     * window, which is only built afterwards, on the EDT.
+     */
     @Override
     public void run()
     {
-        EventQueue.invokeLater(() -> {
-            try {
-                postInitialize();
-                this.setVisible(true);
-                ready = true;
-            }
-            catch (Exception ex) {
+        if(this.fullTimestamp)
+            this.log.fullTimestamp = true;
+        this.log.start();
+        this.store = this.log.store;
 
-            }
+        EventQueue.invokeLater(() -> {
+            this.showRequested = true;
+            if(this.prepared)
+                showWindow();
         });
     }
 
+    /**
+     * Builds and shows the window. Runs on the EDT, once the resources of the window are prepared.
+     */
+    private void showWindow() {
+        try {
+            if(this.icon != null && this.getIconImages().isEmpty())
+                this.setIconImage(this.icon);
+
+            initializeWindow();
+            postInitialize();
+            this.setVisible(true);
+
+            // Shows the logs that were kept before the console was shown.
+            this.log.addListener(this::requestFlush);
+            flush();
+        }
+        catch(Exception ex) {
+            ex.printStackTrace();
+        }
+    }
+
+    /**
+     * Stops updating the status bar, then releases the window.
+     */
+    @Override
+    public void dispose() {
+        if(this.statusTimer != null)
+            this.statusTimer.stop();
+        super.dispose();
+    }
+
+    /**
+     * Schedules a single EDT flush for the logs added to the store. Called by the log while holding the store lock.
+     */
+    private void requestFlush() {
+        if(!this.flushScheduled) {
+            this.flushScheduled = true;
+            EventQueue.invokeLater(this::flush);
+        }
+    }
+
     private void initializeFields() {
-        this.logCount = 0;
         this.fullTimestamp = false;
-        this.setTextSpacing(30);
 
-        this.setBorderColor(new Color(172, 172, 172));
         this.setBackgroundColor(new Color(255, 255, 255));
         this.setTextColor(new Color(0, 0, 0));
-        this.setDebugColor(new Color(225, 225, 225));
-        this.setInfoColor(new Color(215, 255, 215));
-        this.setWarningColor(new Color(255, 255, 215));
-        this.setErrorColor(new Color(255, 215, 215));
 
         this.setTitle("Gamma Console");
-        this.setIconImage(new ImageIcon(Base64.getDecoder().decode("iVBORw0KGgoAAAANSUhEUgAAAIAAAACACAYAAADDPmHLAAAABGdBTUEAALGPC/xhBQAAAAlwSFlzAAAOwgAADsIBFShKgAAAABh0RVh0U29mdHdhcmUAcGFpbnQubmV0IDQuMS41ZEdYUgAAFX9JREFUeF7tnQd4VMXax7dl00Oyu+mEEiAhISGkCAESEjC0AAHEeq2fevV65Vqvem1XEQsKNrhSRLCDoAhICRCkiFJCl95CCQmkQAJSU/b/vTNnI7CMsCuwh3t3/s/ze+DZzDn7nuedM/POzDuzGikpKSkpKSkpKSkpKSkpKSkpKSkpKSkpKSkpKSkpKSkpKSkpKSkpKSkpKSkpKSkpN1YMIPnzQKO5ImxeUFGCh5I4jr1DncXmBRUleCiJ49g71FlsXlBRgoeSOI69Q53F5gUVJXgoiePYO9RZbF5QUYKHkjiOvUOdxeYFFSV4KInj2DvUWWxeUFGCh5I4jr1DncXmBRUleCiJ49g71FlsXlBRgoeSOI69Q53F5gUVJXgoiePYO9RZbF5QUYKHkjiOvUOdxeYFFSV4KInj2DvUWWxeUFGCh5I4jr1DncXmBRUleCiJ49g71FlsXlBRgoeSOI69Q53F5gVVxYyQqIfqEhklcR2qS2SUxHWoLpFREtehukRGuQ06rfhzF6K6REa5BWHBHohp5olYopGfTljGBYhkJMyEF6FlH1xLiYxyG7y9tLi5exDeerwxbs4JQqhJ5+pWoUH+RCc/X92zpkDDJPr/cmIKYSKuqURGuRUGvQYxTT0x6l9NMH9UE9yR443QQK2w7DXAZPTQ3mYOMnzVMdW/9O93hdUmxfke1us0c+lvNxPXXCKj3JLIEA+88GAY1k+KwaRXgnFbthca+YjLXi2CAg3LH7gjrHrFzHZ1346KqeuU4r/Pw6B9j/7WmnCJhIa5K0aDFu88HYVN38Zj3adRGHKfH2Kirk18cGNGIAomJdbtXZqGCa9Hn4kKMxbS5/cQAYTLJDTOnfHz0eGtp6Kwf35bbPq6Ob75twlpsQZ4eYjL/xn+cX8Ejm1OR/kvaRj+VNQJ+ow1+RmEyyU00N1pEmHE6FebY9/8dtgxLQb5b1twe7ansKwzhNLI4/P3YnF4eRq2zGyLu/taijyN2k/pb6zJ1xMul9BQiQbNm3hi+phYlC5Jwb7ZCVj+UTDu7eklLOsI5kA9fpqSiLJlqdg5Owl39TVDq9V8QX9rSagmobESDXMOMtoHYOX3bXFoaQr2/BCHNZ+E48mbfRDcyLlRQl53E7bOS0bp4hSs/zYRD98SAm9Pfo9QQlVdZKzkQm7tZ0Hp6vZUCVKxd04CVo2LwPN3+MLXS1z+fNgQ8+mHInFsQweU/JiCTd8n4m+3BMNLcT5DdV1gsORiWFD48hNNULkhHWUUtO3PT8TyseF49nZfYfkGfOm6ie/FoHRZCg6S8w8uTMZdfcz25VSXvUFOMW3atGuK6DvVIDLMiClj43BmVwZVglTsy0/AehomPpDrLSwf3cQLX7zbAkX5bbjj98xth9cejYQpQG9fVnXZG+QUIqddTUTfqRapbf3wa0Eqzu7pjENLqDuYm4iNn0YiodmFTm0e5YkZH8di8+QmWD8hAkUUQM74oBV8zjX756O6REY5jMhpVxPRd6qFTqfB3YNCULahI28JDv9ELQFVgp8+CkdslJ4Hjazc+GEtsHN6NArHBGPlRxbMGRGO1HhxS0GoLpFRDiNy2tVE9J1qM2FEDOoPdMGp7dQSUGBYPD8J04aGIKWlAY/dacKOac3J+RasIucvfjcIeZ0uOX+gukRGOYzIaVcT0XeqjTnQgK1L0mAtzsLJbZ34PEHRrDaY/LIJ3ZKNGPdkAHf+8pFmjBzsd7n1BNUlMsphRE67moi+83ogo0MAjlELwFqC3zZ35OP7ndNb47m/+KNnmhE/vB6ESS8GIir4svMFqktklMOInHY1EX3n9YCfrx5fj24DHO4BHMzGsY0debS/bWo07uvljXt7eOH2rg5NHasukVEOI3La1UT0ndcLnTqYsHllT1jLclG3vwuq1nXAgYIk/DS6MdJi9I4uHqkukVESBwjw0+P1lxJQd/QWoPRG1BZ1QcWKG7B3TiIm/ssEf2/xdXaoLpFRksvg6aHFU/dFIK9nKDb+0hOo7MeDwjM7M3CIhofbpsVg8AAf4bV2qC6RUZJL4OOtxxP/1xi75yRh+LPN8NwTrXG8eCBQ0YcqQTYPCg/Mb4tZb1nQKd4gvMd5qC6RUZJLcGN2CMq3d+fDv7VTE5HSxh8rfsyBtYq6AgoK6ykeKF+ehk1fNcF/HgtAuOmSIwHVJTJK8gf4+xkw97tM1B/qicpV7bFvfjLefqY5Bj/UEtbq26gr6A8rjQpqijKxLz8ehaODkdfxf3giyJ1gU70D+0bi9KE8WEuycHxjum2hJwkDe4Vg2fwbqRW4lbcCLB44vrEDbwW+fzUQoUF/2AqoLpFREgHhYV407OtFw75eqNmdibJlaShe0A57Z7dBXnYgBvWPRM0RqgCVeXxuoJZageKFiSgcG4oh9/rCVzwqUF0ioyQCnnuyNWrKB6L+YFdUraEx/7y22DypGUY+HogQkx4R4V5Ymt8NqKZYoKw3tRIUEG5Kx5ZJTTHvbRPatxYGhKpLZJTEjthW/ijfQ/17eS7O0pvNmv4d37VCwTtBiAo+lzb+LI0I6qooFmABIbUUbIKoZFFbrBptwZB7fKHXXXRv1WVvkMQO1ve/9mICzpbfBJR2w/Ff03nTv35iBIY96Acv47myLaN9sXNdLnDsXEB4jGKBzdQKFAw3ISfZ44J7E6rL3iCJHSzyL1zSncb5/VB/IIvP9hX9EI/F75uRlXShQ1nOwAfDklF3lGKBqpv5DCEbERxYkIjVY0Mw9D4/eOgvuL/qOt8YiYCH72+BU4dvgvVQD5ze0RkHf0ymfr0Z3n/U396ZnPQbTDi8awDFAtQKUDdgpUrDWoGtdM1C6jISm1+QQaS6zjdGYkdkuDd2b8yF9QgFf8XZ9PanYT8Ff4XjwpCZKJ7l8/LSoWBmljIvcKQ/HxGwVmB/fjxWfGTBk4MumCJWXecbI7HjwXujUcuacwr+2Dx/yeIU7JoRiy+eC4CHQXwN6wYG/7UV6nkwyLqBbjxvoGrtDXxeYMl7JjQN/T1wVF0XGC85hze9ybO/zeQRvZX68up1HVBc0A6rJzTmSR/M0aLrGM2b+KBkR57SChzuySeGTu/szDeXsFagX/rvs4OqbAc7XxcYLjkHm/OvKBoAa+UA1NJwjiWB7p7eGjNfNyHCculMHz8/Pb4cn65UgIq+vBtgrUDFilRsoNHDmMf9YVRaEAuhqi4yXsLefj0mTSAH8gWensoK34IkbPy8MZ/V0wuCP3syO1twuoy6gKMDeQVgrcCJrR2xc1orzHrD1BBA9iRU1UWGSzSIj/NHyXZqwo8OorE8Df1W0tBvdhssG2lBRsJFY3khbVoH4CDdg08KURfCp4f3ZaJ0STusGR+GR/t7wdtT8zKVVVVC492d55+Ow9kK6vvL+/A5fbb0u2Vyc57xG+gnvkbE5E87UjdAQWRZb1sr0AVH17THtiktMPGZRqwCfEflGhGqSWi4OxPYyAPzp3chx1EFONQd1RvS+X7A1R+H4ZYsx88IYEHiM4/HKpNCR28CSrryboBtKtk/LwHLPrQgO8mjlMqqcjBEg4TGuzOd082op+DNSk6r25/F3/7dM1tjwTtBaBri3HExnTqYUbl3oBJL2LoBljBStiwFGz6NxIO53tVU7nlCtdGA0HB3hs3717Jl3bJcZeZvETX/k5pj+EN+DZG7w1jMRixfmKOMBspzfw8G2XrCzu9a4d1H/H+jcjOJYEIVCQ13V1izPX1yhjL2P5TDHXVgfhIKP47AwAwjtIJrLsfE0e2VOKBSmRUEBZW8G8hPwNxhlrqmobqDVC6BUEVCo90VH28ddq3vw2fw+NQvRf/75iZg+lATGvmKr7kcj/89BjVHqAs4SkPCkm68EtTspcByEVtRjETv9sZjVO42QhUJjXZX+vQKx4lSGvpV9KUhWxd+NMy2KdEYer8vP+1DdM3lyM4Mxm8lFATy0UBPXgHqaDh4eGkqH1n8+x7fGm+jZgSVvebHwookNNpdYUu5LK+PpX2d2taJT/6so7f0vis4HCq6mS9Kd+XZcgT68QrAlpXZ1PLO72Mw6/Uga4RZl09lXXo+YIOERrsjZpMRm1jOH5/778a3erH9/ytHByPhwiVcp2DDyl/ZffnqIJsVVIaDp7Z3wt458fh5lMXappl+I5WNIFwuodHuSNs2jXjaFxuzs7w/lvjBhn+TXwqCyf+yu3z/EKOHFp+Pa29bHaRYoLwvcKg7aikOKPkxCWs+DrV2SzaWUdk+hMu7AaHR7kjf3uE4xebu6S1liz98i9fUlnjlHt8rOkFcr9fisUdsy8OsFWBzDFWDqJJl8w0kGz9rjL/18z5NZV8iXC6h0e7IU/+IofE/vaFHBvDEz5JFyVj/eVMM6Oz47N8fkdsjHL9RcMnjAIJ3MzTMrOLTwtF4436/Gir3LcF+I8ClEhrsjox5P1XppyvzcHIrBYAF7bBiXDg6xF12f99l6ZBmQvVB20iAQ5WgrDdPL2c5AhOeaVTvZdQUUNlAwqUSGuxuGI1azJqSySsAGwKyCSB2FNyP71nQKvLKTws3BXngwFbq+3kXQK0MVQIrVbTq9RRozknA96+ZKc7QbKKyLg8EhQa7G74+evw8v5tSAcr7oGqt8mbmDzMh7NKbOx3C39+AwsU5SgWg/p93BRRrnNjSGfvnJWLBiGBruFm7jcrGEi6V0GB3w2IxYu1P3ZUKUJaLI6tvwHYKAGcOveS+Podh6WVL57JdQ8zxtozho4NwclsGihe2w5JRoUhuaaigsmmESyU02N2ICPfErvVsrM4mgXL5FPDWyc0x/bWrUwHY5pIfvlG6GL53kMUBFAie2pGF4oJkrBgbwWINNhTsSrhUQoPdDXYU7PZCaqKpaa4/nIvyX1Kx6csmmP1G4OX29zvMuA8agsx+VAEoDqAKcGZ3NrUAyTzRtHuqsYqGmzlU1qUSGutuBPjrsXXljdxB9WV9cHiZcsDD3DcDnc4BEMFyCD8ZdQOfZubLwrYW4PSuLL7RZNX4SHRPMbJfDsklXCqhwe5GeIgHNizryruA+rK+/FTwTV81xbxhgWh2Lof/ivh0TPtzFYDNCFIrwCoATzX/JAJdk/mqoMuTRIXGuhsWkwHrl7LdPFQByvvyHUAsBlg0IghxTa68Anh4aDHm/RQ+AcS2izW0ACcpBtg/LwlLPwxBZqIHCwJlDKAGzEHL8jN4F2Ct6I+jazpg+7ctsewDEzISHcsCvhyTJ6bDynIC2OGSVAFYZTixNQNFs+Ow8F2LNSqEJ4akElKuVojZY/y0L9KsvALw8XlH7J4Zh+WjLLi3hzdL22Lp2392ocabmLJgRtYZK9sjcOhGnh1krchD9bqOfCp4zpt8SXgnlYvjV0i5XCETRiWfYgs2bKHmzJ5MftTb6o9D8cJffGu9jJoxVMZDKeq0zBazZ8GeX/tYrRVKPgBPCjmQxWMNlhw66cXAOiq3llAtN9DtNfTF+HEN+/rrDnSlkUAqfv0iChP+GVDn562ZTUV8lZLOSafTtEhLDtpVuXeAle0yYs5n+QA1RRkUALbFmnGhGDnYv5aaF7YWoEpSiBQFXzfnRZzgW7mob7aWKJtBd06LwYLhJmu4SbuBysQoRZ2TwaB9+IV/xh+vO8JyApXUcJ4ZvDEdu2fE8uNjnr3Nh60GDiNUSQuT0mjaJcb5lx7c3s/Kp2nLe+PUjs4oXpCE1ePCcHeO13EPPf9ZV2cVZjEZ8+d9n1WrZAVnKc2/7TBJ1v//MtKM27I9q6hsL+USKTVk9vHRT1q1OOekkrvXH/X0lrLhIDsNZOwTATU+nprJrJxS3DHp9dqbUpKCjlTsybOyLKCGt5/92sjBhUpW8MIRJiQ0M7CVwEjlKik1pKWh4JPvvNb2ZN1RqgC8G+iGMzuV1bqCERZrl0QPtotnoFLcIbE9f1N++Cajlq0wMufzt39fJk83K5oVjzVjQ/D+I/4I8NFMpbIGfpWUakptGe33c0XRgHreChzuxd9W1lRvn9oCbz3oX0+tANvM6Uik7qPTal4c/FDL32rKB/DK1PD2s63mbP6fbRP/+UMzbs3yOkLln1Uuk1JTnp5G3ZRpX3Wu4fl7lXncYcpmziSsmxBpHZTpySZrXiX8+RV/IHJ+ZliwsWjXuh61KM353fl1+7rwdQY2/fvr51GY/UaQtVmYrpguSVGulFJTLAIf1LG9edvx0kF1fMWO+m0WC7AU8V3TY2lEYK6Lb6rfTeUe4ldcLHaPnPgWnmvnfZlYX1fc9femn92nep3tfOFZcSgcG4wX7/T9jVqV0XTNn51jkLrK8ggL9Zo/5bOOdUoWL1WCyn6o3dsFFewn3ykgXPSuqb5ZqL7Qw6B5ksqzfp453UgE6nWaeyyBhvkfDW1xsGZvF2uD89nbz84IYodM7ctviw2fRWL6kKD6JiG6LXRdJ0LqOlK3zE6WktId/a08FmDz9lQJavZQ8LY8BZu/aoovXwiq6dPBWG3Qa2ZQ+SHEWFOAbkHODd7VBZ/EnqayVuZ0pQJkof6AEvixt58tM7OflbuThpZ0HRv7uzwTWOrS8iPeHvpyYiVP4Dh2u9ISlPXi+wXZoY/758VjxYRm1v88HVL3wn3BNf9+KOzY1OHRZzfPSORbys45X2n62aQP6/e3fhPNf0NgwtONztLbv5K+509NLklde8V5eepmLJ7btcrKWwGlO2B7BtnPwrBDHliTXrW2PcqWpfJp4yOF7XGWAsbznc/+f3Z3Bt9jwPYBriLnf/dKINsKVknfcZfyVVLXqwb6+OgXbSnsfZwdF6Nk9NK/bExvO+6FHQPLZvXY4U9sw2eD4xtg278ahpHst4QXDg9C33RjFXUdbNjHVgmlrmPpiFezOgevOVF6U72VnfrJWwKCHQFrG94pXOh8Vjm481ekYcd3LbF6XAjmvhVUQ87fR/d8kzCxL5C6/uVDDOnWJaS0eEtuPd/dy1oBW0YPz/Ble/4Pd+fnCbJKwfp81uyXLknmSSVsseeblwJP+vtoV9NwYSjdz+W7f6SuTGF6vXbIA/dEV65b2tVae6i3tb5iAE8f40e/8FZByfCpLc1FFY31WS4B+zWRhe+arW8+4HcywqxbQvcZTLAAU+q/UL5UCZ5pExewbe7UTrXFP3dA9aZsnC3JQ135ILCl3jMl/VG5ujN2z4hD4fhI68jB/vU5KR5V9NZ/SddnKbeR+m8WO8otJyLca0qPTNOeR28Prfz67Vb1Cye2sf4yOQkLPomvH/9S47q/5vmfahttKA1upGWnf91EsLUDNlkk9T8iNnHDTvV6wMdLN8wSqB8bZjF8YmqkH2U0aD6gzx+2/V1O8EhJSUlJXRtpNP8PEq1z2xREuaYAAAAASUVORK5CYII=")).getImage());
+        this.setBounds(100, 100, 768, 768);
+        this.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+    }
+
+    /**
+     * Prepares the resources of the window while the application starts, off the EDT: decodes the icon, creates the
+     * editor kit and loads the default style sheet of the HTML documents, which every document extends.
+     */
+    private void prepare() {
+        try {
+            this.icon = new ImageIcon(Base64.getDecoder().decode(ICON)).getImage();
+            LogEditorKit editorKit = new LogEditorKit();
+            editorKit.getStyleSheet();
+            this.editorKit = editorKit;
+        }
+        catch(Exception ex) {
+            // The window is shown without them.
+            ex.printStackTrace();
+        }
+        finally {
+            EventQueue.invokeLater(() -> {
+                this.prepared = true;
+                if(this.showRequested)
+                    showWindow();
+            });
+        }
     }
 
     private void initializeWindow() {
-        this.setBounds(100, 100, 768, 768);
-        this.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        if(this.editorKit == null)
+            this.editorKit = new LogEditorKit();
+
+        this.view = createView(null, new LogFilter(LogFilter.ALL_LEVELS, "", null));
+        this.views = new ArrayList<>();
+        this.views.add(this.view);
+
+        this.listModel = new LogListModel(this.storeLock);
+        this.list = new JList<LogRecord>(this.listModel) {
+            @Override
+            public boolean getScrollableTracksViewportWidth() {
+                return true;
+            }
 
-        this.textPane = new JTextPane();
-        this.textPane.setForeground(this.getTextColor());
-        this.textPane.setBackground(this.getBackgroundColor());
-        this.textPane.setEditable(false);
-        this.textPane.setContentType("text/html");
-        this.textPane.setFont(new Font("monospaced", Font.PLAIN, 12));
+            @Override
+            public String getToolTipText(MouseEvent event) {
+                int index = this.locationToIndex(event.getPoint());
+                LogRecord record = index < 0 ? null : listModel.getElementAt(index);
+                if(record == null)
+                    return null;
+
+                StringBuilder text = new StringBuilder();
+                LogFormatter.appendPlainText(record.message, text);
+                if(record.trace == null)
+                    return text.toString();
+
+                // The list cannot expand a row, so the stack trace is shown here, and only formatted when hovered.
+                return "<html>" + LogFormatter.escapeHtml(text.toString()) + "<br>" + record.trace.html() + "</html>";
+            }
+        };
+        this.list.setCellRenderer(new LogCellRenderer(this));
+        ToolTipManager.sharedInstance().registerComponent(this.list);
 
-        this.scrollPane = new JScrollPane(this.textPane);
+        this.scrollPane = new JScrollPane(this.view.textPane);
         this.verticalScrollBar = scrollPane.getVerticalScrollBar();
 
         this.saveButton = new JButton("Save");
         this.saveButton.setVerticalTextPosition(AbstractButton.CENTER);
         this.saveButton.setHorizontalTextPosition(AbstractButton.CENTER);
-        this.saveButton.setToolTipText("Save the log in HTML format.");
+        this.saveButton.setToolTipText("Save the log.");
         this.saveButton.addActionListener(new ActionListener() {
             public void actionPerformed(ActionEvent e) {
                 save();
@@ -263,6 +626,73 @@ public class GammaConsole extends JFrame implements Runnable {
             }
         });
 
+        this.searchField = new JTextField(20);
+        this.searchField.setToolTipText("Search the messages and callers (case-insensitive).");
+        this.searchField.addActionListener(new ActionListener() {
+            public void actionPerformed(ActionEvent e) {
+                search(1);
+            }
+        });
+
+        this.previousButton = new JButton("Previous");
+        this.previousButton.setToolTipText("Jump to the previous match.");
+        this.previousButton.addActionListener(new ActionListener() {
+            public void actionPerformed(ActionEvent e) {
+                search(-1);
+            }
+        });
+
+        this.nextButton = new JButton("Next");
+        this.nextButton.setToolTipText("Jump to the next match.");
+        this.nextButton.addActionListener(new ActionListener() {
+            public void actionPerformed(ActionEvent e) {
+                search(1);
+            }
+        });
+
+        this.searchLabel = new JLabel();
+
+        this.levelBoxes = new JCheckBox[LogLevel.values().length];
+        for(int i = 0; i < this.levelBoxes.length; i++) {
+            this.levelBoxes[i] = new JCheckBox(levelName(LogLevel.of(i)), true);
+            this.levelBoxes[i].setToolTipText("Show the " + levelName(LogLevel.of(i)) + " messages.");
+            this.levelBoxes[i].addActionListener(new ActionListener() {
+                public void actionPerformed(ActionEvent e) {
+                    applyFilter();
+                }
+            });
+        }
+
+        this.droppedLabel = new JLabel();
+        this.droppedLabel.setToolTipText("The logs that were dropped or collapsed to keep up with the printed logs.");
+
+        this.statusLabel = new JLabel(" ");
+
+        this.timelineStrip = new LogTimelineStrip(this);
+
+        // Each tab gets its own view once it is selected. The virtualized list is shared by the tabs.
+        this.channelTabs = new JTabbedPane();
+        this.channelTabs.addTab("All", Box.createRigidArea(new Dimension()));
+        this.channelTabs.setToolTipTextAt(0, "Show the logs of every channel.");
+        this.channelTabs.addChangeListener(e -> selectView(this.channelTabs.getSelectedIndex()));
+
+        this.callerLabel = new JLabel("Caller:");
+        this.callerField = new JTextField(15);
+        this.callerField.setToolTipText("Only show the messages whose caller contains this text (case-insensitive).");
+        this.callerField.getDocument().addDocumentListener(new DocumentListener() {
+            public void insertUpdate(DocumentEvent e) {
+                applyFilter();
+            }
+
+            public void removeUpdate(DocumentEvent e) {
+                applyFilter();
+            }
+
+            public void changedUpdate(DocumentEvent e) {
+                applyFilter();
+            }
+        });
+
         SpringLayout springLayout = new SpringLayout();
 
         springLayout.putConstraint(SpringLayout.WEST, clearButton, 5, SpringLayout.WEST, this.getContentPane());
@@ -271,25 +701,125 @@ public class GammaConsole extends JFrame implements Runnable {
         springLayout.putConstraint(SpringLayout.WEST, saveButton, 5, SpringLayout.EAST, clearButton);
         springLayout.putConstraint(SpringLayout.NORTH, saveButton, 5, SpringLayout.NORTH, this.getContentPane());
 
+        springLayout.putConstraint(SpringLayout.EAST, nextButton, -5, SpringLayout.EAST, this.getContentPane());
+        springLayout.putConstraint(SpringLayout.NORTH, nextButton, 5, SpringLayout.NORTH, this.getContentPane());
+
+        springLayout.putConstraint(SpringLayout.EAST, previousButton, -5, SpringLayout.WEST, nextButton);
+        springLayout.putConstraint(SpringLayout.NORTH, previousButton, 5, SpringLayout.NORTH, this.getContentPane());
+
+        springLayout.putConstraint(SpringLayout.EAST, searchField, -5, SpringLayout.WEST, previousButton);
+        springLayout.putConstraint(SpringLayout.VERTICAL_CENTER, searchField, 0, SpringLayout.VERTICAL_CENTER, previousButton);
+
+        springLayout.putConstraint(SpringLayout.EAST, searchLabel, -5, SpringLayout.WEST, searchField);
+        springLayout.putConstraint(SpringLayout.VERTICAL_CENTER, searchLabel, 0, SpringLayout.VERTICAL_CENTER, previousButton);
+
+        for(int i = 0; i < levelBoxes.length; i++) {
+            springLayout.putConstraint(SpringLayout.WEST, levelBoxes[i], 5, i == 0 ? SpringLayout.WEST : SpringLayout.EAST, i == 0 ? this.getContentPane() : levelBoxes[i - 1]);
+            springLayout.putConstraint(SpringLayout.NORTH, levelBoxes[i], 5, SpringLayout.SOUTH, clearButton);
+        }
+
+        springLayout.putConstraint(SpringLayout.WEST, droppedLabel, 10, SpringLayout.EAST, levelBoxes[levelBoxes.length - 1]);
+        springLayout.putConstraint(SpringLayout.VERTICAL_CENTER, droppedLabel, 0, SpringLayout.VERTICAL_CENTER, levelBoxes[0]);
+
+        springLayout.putConstraint(SpringLayout.EAST, callerField, -5, SpringLayout.EAST, this.getContentPane());
+        springLayout.putConstraint(SpringLayout.VERTICAL_CENTER, callerField, 0, SpringLayout.VERTICAL_CENTER, levelBoxes[0]);
+
+        springLayout.putConstraint(SpringLayout.EAST, callerLabel, -5, SpringLayout.WEST, callerField);
+        springLayout.putConstraint(SpringLayout.VERTICAL_CENTER, callerLabel, 0, SpringLayout.VERTICAL_CENTER, levelBoxes[0]);
+
         springLayout.putConstraint(SpringLayout.WEST, scrollPane, 0, SpringLayout.WEST, this.getContentPane());
-        springLayout.putConstraint(SpringLayout.EAST, scrollPane, 0, SpringLayout.EAST, this.getContentPane());
-        springLayout.putConstraint(SpringLayout.NORTH, scrollPane, 5, SpringLayout.SOUTH, clearButton);
+        springLayout.putConstraint(SpringLayout.EAST, scrollPane, 0, SpringLayout.WEST, timelineStrip);
+        springLayout.putConstraint(SpringLayout.NORTH, scrollPane, 5, SpringLayout.SOUTH, levelBoxes[0]);
         springLayout.putConstraint(SpringLayout.SOUTH, scrollPane, 0, SpringLayout.SOUTH, this.getContentPane());
 
+        // The strip follows the scroll pane when the channel tabs or the status bar are shown.
+        springLayout.putConstraint(SpringLayout.EAST, timelineStrip, 0, SpringLayout.EAST, this.getContentPane());
+        springLayout.putConstraint(SpringLayout.NORTH, timelineStrip, 0, SpringLayout.NORTH, scrollPane);
+        springLayout.putConstraint(SpringLayout.SOUTH, timelineStrip, 0, SpringLayout.SOUTH, scrollPane);
+
+        springLayout.putConstraint(SpringLayout.WEST, statusLabel, 5, SpringLayout.WEST, this.getContentPane());
+        springLayout.putConstraint(SpringLayout.SOUTH, statusLabel, -3, SpringLayout.SOUTH, this.getContentPane());
+
         this.getContentPane().setLayout(springLayout);
         this.getContentPane().add(this.scrollPane);
+        this.getContentPane().add(this.timelineStrip);
         this.getContentPane().add(this.saveButton);
         this.getContentPane().add(this.clearButton);
+        this.getContentPane().add(this.searchLabel);
+        this.getContentPane().add(this.searchField);
+        this.getContentPane().add(this.previousButton);
+        this.getContentPane().add(this.nextButton);
+        for(JCheckBox levelBox : this.levelBoxes)
+            this.getContentPane().add(levelBox);
+        this.getContentPane().add(this.droppedLabel);
+        this.getContentPane().add(this.callerLabel);
+        this.getContentPane().add(this.callerField);
     }
 
     private void postInitialize() {
-        this.textPane.setSelectionColor(new Color(Math.abs(this.backgroundColor.getRed() - 255), Math.abs(this.backgroundColor.getGreen() - 255), Math.abs(this.backgroundColor.getBlue() - 255), 127));
-        this.textPane.setBackground(backgroundColor);
-        this.textPane.setForeground(textColor);
-        this.setBackground(backgroundColor);
+        resetDocument(this.view);
+        applyStyle();
+        this.styled = true;
+
+        if(this.virtualized) {
+            this.list.setFont(this.view.textPane.getFont());
+            // Fixed cell sizes let the list lay out any amount of rows without measuring them.
+            this.list.setFixedCellHeight(LogCellRenderer.getRowHeight(this.list.getFontMetrics(this.list.getFont())));
+            this.list.setFixedCellWidth(1);
+            this.listModel.setStore(this.store);
+
+            this.scrollPane.setViewportView(this.list);
+        }
+
+        if(this.statusBarVisible) {
+            SpringLayout springLayout = (SpringLayout) this.getContentPane().getLayout();
+            springLayout.putConstraint(SpringLayout.SOUTH, scrollPane, -3, SpringLayout.NORTH, statusLabel);
+            this.getContentPane().add(this.statusLabel);
+
+            this.statusTimer = new Timer(1000, e -> updateStatusBar());
+            this.statusTimer.start();
+        }
+    }
+
+    /**
+     * Applies the colors on the EDT, if the console was shown. Several changes in a row are applied once.
+     */
+    private void restyle() {
+        if(this.styled && !this.restyleScheduled) {
+            this.restyleScheduled = true;
+            EventQueue.invokeLater(this::applyStyle);
+        }
+    }
+
+    /**
+     * Applies the colors to the window. The documents are restyled by changing the rules of their style sheets, and
+     * the rows take the new colors when they are next painted.
+     */
+    private void applyStyle() {
+        this.restyleScheduled = false;
+
+        this.setBackground(this.backgroundColor);
+        this.list.setBackground(this.backgroundColor);
+        this.list.setSelectionBackground(getSelectionColor());
+        for(LogView view : this.views)
+            if(view != null)
+                applyStyle(view);
+
+        this.list.repaint();
+        this.timelineStrip.repaint();
+    }
+
+    private void applyStyle(LogView view) {
+        view.textPane.setSelectionColor(getSelectionColor());
+        view.textPane.setBackground(this.backgroundColor);
+        view.textPane.setForeground(this.textColor);
+
+        view.editorKit.restyle(view.document, this.log.createStyle() + " body { color: " + LogFormatter.toCss(this.textColor) + "; }");
+        view.textPane.repaint();
+    }
 
-        this.contentString = new StringBuilder("<html><head><style>div { white-space: nowrap; font-family: " + textPane.getFont().getFamily() + "; width: 100%; border-top: 1px solid " + String.format("#%02x%02x%02x", this.borderColor.getRed(), this.borderColor.getGreen(), this.borderColor.getBlue()) + "; padding-top: 5px; padding-bottom: 5px; margin-top: 0px; } .debug { background-color: " + String.format("#%02x%02x%02x", this.debugColor.getRed(), this.debugColor.getGreen(), this.debugColor.getBlue()) + "; } .info { background-color: " + String.format("#%02x%02x%02x", this.infoColor.getRed(), this.infoColor.getGreen(), this.infoColor.getBlue()) + "; } .warning { background-color: " + String.format("#%02x%02x%02x", this.warningColor.getRed(), this.warningColor.getGreen(), this.warningColor.getBlue()) + "; } .error { background-color: " + String.format("#%02x%02x%02x", this.errorColor.getRed(), this.errorColor.getGreen(), this.errorColor.getBlue()) + "; }</style></head>");
-        this.textPane.setText(contentString.toString());
+    private Color getSelectionColor() {
+        return new Color(Math.abs(this.backgroundColor.getRed() - 255), Math.abs(this.backgroundColor.getGreen() - 255), Math.abs(this.backgroundColor.getBlue() - 255), 127);
     }
 
     /**
@@ -344,265 +874,676 @@ public class GammaConsole extends JFrame implements Runnable {
      * @param caller The caller of the method.
      */
     public void printVerbose(String text, String caller) {
-        try {
-            while(!ready)
-                TimeUnit.NANOSECONDS.sleep(10);
-
-            contentString.append("<div class=\"verbose\">");
-            contentString.append(this.getTimestamp());
-
-            int halfLength = caller.length() / 2;
-            for(int u = 0; u < this.halfTextSpacing - halfLength; u++)
-                contentString.append("&nbsp;");
-            contentString.append(caller);
-            for(int u = 0; u < this.halfTextSpacing - halfLength; u++)
-                contentString.append("&nbsp;");
-            if(caller.length() % 2 == 0)
-                contentString.append("&nbsp;");
+        this.log.printVerbose(text, caller);
+    }
 
-            contentString.append(text);
-            contentString.append("</div>");
+    /**
+     * Prints debug text.
+     *
+     * @param text The text to print.
+     * @param caller The caller of the method.
+     */
+    public void printDebug(String text, String caller) {
+        this.log.printDebug(text, caller);
+    }
 
-            boolean doFullScroll = this.verticalScrollBar.getValue() == this.verticalScrollBar.getMaximum() - this.verticalScrollBar.getVisibleAmount();
-            int scrollValue = this.verticalScrollBar.getValue();
+    /**
+     * Prints info text.
+     *
+     * @param text The text to print.
+     * @param caller The caller of the method.
+     */
+    public void printInfo(String text, String caller) {
+        this.log.printInfo(text, caller);
+    }
 
-            textPane.setText(contentString.toString());
+    /**
+     * Prints warning text.
+     *
+     * @param text The text to print.
+     * @param caller The caller of the method.
+     */
+    public void printWarning(String text, String caller) {
+        this.log.printWarning(text, caller);
+    }
 
-            if(doFullScroll)
-                scrollToBottom();
-            else scrollTo(scrollValue);
+    /**
+     * Prints error text.
+     *
+     * @param text The text to print.
+     * @param caller The caller of the method.
+     */
+    public void printError(String text, String caller) {
+        this.log.printError(text, caller);
+    }
 
-            logCount++;
-            collectGarbage();
-        }
-        catch(Exception ex) {
+    /**
+     * Prints an exception, shown as a one-line summary whose stack trace can be expanded. The trace is only
+     * formatted when it is needed, and a repeated exception shares the trace of the previous one.
+     *
+     * @param throwable The exception to print.
+     */
+    public void printError(Throwable throwable) {
+        printError(throwable, "ERROR");
+    }
 
-        }
+    /**
+     * Prints an exception, shown as a one-line summary whose stack trace can be expanded.
+     *
+     * @param throwable The exception to print.
+     * @param caller The caller of the method.
+     */
+    public void printError(Throwable throwable, String caller) {
+        this.log.printError(null, throwable, caller);
     }
 
     /**
-     * Prints debug text.
+     * Prints error text, followed by the stack trace of an exception, which can be expanded.
      *
      * @param text The text to print.
+     * @param throwable The exception to print.
      * @param caller The caller of the method.
      */
-    public void printDebug(String text, String caller) {
-        try {
-            while(!ready)
-                TimeUnit.NANOSECONDS.sleep(10);
+    public void printError(String text, Throwable throwable, String caller) {
+        this.log.printError(text, throwable, caller);
+    }
 
-            contentString.append("<div class=\"debug\">");
-            contentString.append(this.getTimestamp());
+    /**
+     * Jumps to the next (or previous) log that contains the text of the search field, and highlights it.
+     *
+     * @param direction 1 to jump to the next match, -1 to jump to the previous one.
+     */
+    private void search(int direction) {
+        if(this.store == null)
+            return;
+
+        String query = this.searchField.getText();
+        if(!query.equals(this.searchQuery)) {
+            this.searchQuery = query;
+            this.searchSequence = -1;
+        }
 
-            int halfLength = caller.length() / 2;
-            for(int u = 0; u < this.halfTextSpacing - halfLength; u++)
-                contentString.append("&nbsp;");
-            contentString.append(caller);
-            for(int u = 0; u < this.halfTextSpacing - halfLength; u++)
-                contentString.append("&nbsp;");
-            if(caller.length() % 2 == 0)
-                contentString.append("&nbsp;");
+        // Makes sure that every match that can be found is also in the view.
+        flush();
+        this.view.textPane.getHighlighter().removeAllHighlights();
+        this.list.repaint();
+
+        // Only the matches that pass the filter are shown. Only the virtualized view shows the archived logs.
+        long[] matches = this.log.find(query, this.virtualized);
+        int end = 0;
+        for(long match : matches)
+            if(viewRow(match) >= 0)
+                matches[end++] = match;
+
+        if(end == 0) {
+            this.searchLabel.setText(query.isEmpty() ? "" : "No matches");
+            this.searchSequence = -1;
+            return;
+        }
 
-            contentString.append(text);
-            contentString.append("</div>");
+        int position;
+        if(direction > 0) {
+            position = 0;
+            while(position < end && matches[position] <= this.searchSequence)
+                position++;
+            if(position == end)
+                position = 0;
+        }
+        else {
+            position = end - 1;
+            while(position >= 0 && (this.searchSequence < 0 || matches[position] >= this.searchSequence))
+                position--;
+            if(position < 0)
+                position = end - 1;
+        }
 
-            boolean doFullScroll = this.verticalScrollBar.getValue() == this.verticalScrollBar.getMaximum() - this.verticalScrollBar.getVisibleAmount();
-            int scrollValue = this.verticalScrollBar.getValue();
+        this.searchSequence = matches[position];
+        this.searchLabel.setText((position + 1) + " / " + end);
+        jumpTo(this.searchSequence, query);
+    }
 
-            textPane.setText(contentString.toString());
+    /**
+     * Scrolls to a log and highlights the occurrences of the query in it.
+     */
+    private void jumpTo(long sequence, String query) {
+        int row = viewRow(sequence);
 
-            if(doFullScroll)
-                scrollToBottom();
-            else scrollTo(scrollValue);
+        if(this.virtualized) {
+            this.list.setSelectedIndex(row);
+            this.list.ensureIndexIsVisible(row);
+            return;
+        }
 
-            logCount++;
-            collectGarbage();
+        try {
+            Element element = this.view.body.getElement(row);
+            int start = element.getStartOffset();
+            String text = this.view.document.getText(start, element.getEndOffset() - start);
+
+            for(int i = indexOfIgnoreCase(text, query, 0); i >= 0; i = indexOfIgnoreCase(text, query, i + query.length()))
+                this.view.textPane.getHighlighter().addHighlight(start + i, start + i + query.length(), SEARCH_HIGHLIGHT);
+
+            // modelToView2D only exists since Java 9, and the console targets Java 8.
+            @SuppressWarnings("deprecation")
+            Rectangle bounds = this.view.textPane.modelToView(start);
+            if(bounds != null) {
+                bounds.height = this.scrollPane.getViewport().getHeight() / 2;
+                this.view.textPane.scrollRectToVisible(bounds);
+            }
         }
-        catch(Exception ex) {
+        catch(BadLocationException ex) {
+            ex.printStackTrace();
+        }
+    }
+
+    /**
+     * Scrolls the view so that a log, or the first shown log after it, is at the top. Runs on the EDT.
+     */
+    void scrollToLog(long sequence) {
+        if(this.virtualized) {
+            int row = this.listModel.rowAtOrAfter(sequence);
+            if(row < 0)
+                return;
+
+            this.list.setSelectedIndex(row);
+            Rectangle bounds = this.list.getCellBounds(row, row);
+            if(bounds != null) {
+                bounds.height = this.scrollPane.getViewport().getHeight();
+                this.list.scrollRectToVisible(bounds);
+            }
+            return;
+        }
+
+        LogView view = this.view;
+        int row = Math.min(view.rows.countBefore(sequence), view.rows.size() - 1);
+        if(row < 0)
+            return;
 
+        try {
+            // modelToView2D only exists since Java 9, and the console targets Java 8.
+            @SuppressWarnings("deprecation")
+            Rectangle bounds = view.textPane.modelToView(view.body.getElement(row).getStartOffset());
+            if(bounds != null) {
+                bounds.height = this.scrollPane.getViewport().getHeight();
+                view.textPane.scrollRectToVisible(bounds);
+            }
+        }
+        catch(BadLocationException ex) {
+            ex.printStackTrace();
         }
     }
 
     /**
-     * Prints info text.
+     * Gets the row of the view that shows a log, or -1 if the log is not shown.
+     */
+    private int viewRow(long sequence) {
+        return this.virtualized ? this.listModel.indexOf(sequence) : this.view.rows.indexOf(sequence);
+    }
+
+    /**
+     * Applies the level checkboxes and the caller field to the view. Runs on the EDT.
      *
-     * @param text The text to print.
-     * @param caller The caller of the method.
+     * The kept logs that pass the filter are selected through the level bitmaps of the store. The virtualized view
+     * only swaps its rows; the HTML view has to be rebuilt from the selected logs. The views of the other channel
+     * tabs are dropped, and built again when their tab is selected.
      */
-    public void printInfo(String text, String caller) {
-        try {
-            while(!ready)
-                TimeUnit.NANOSECONDS.sleep(10);
+    private void applyFilter() {
+        this.view.filter = createFilter(this.view.channel);
+        for(int i = 0; i < this.views.size(); i++)
+            if(this.views.get(i) != this.view)
+                this.views.set(i, null);
+
+        if(this.store == null)
+            return;
 
-            contentString.append("<div class=\"info\">");
-            contentString.append(this.getTimestamp());
+        this.view.textPane.getHighlighter().removeAllHighlights();
+        this.searchSequence = -1;
 
-            int halfLength = caller.length() / 2;
-            for(int u = 0; u < this.halfTextSpacing - halfLength; u++)
-                contentString.append("&nbsp;");
-            contentString.append(caller);
-            for(int u = 0; u < this.halfTextSpacing - halfLength; u++)
-                contentString.append("&nbsp;");
-            if(caller.length() % 2 == 0)
-                contentString.append("&nbsp;");
+        if(this.virtualized) {
+            this.listModel.setFilter(this.view.filter);
+            updateLevelCounts();
+        }
+        else {
+            resetDocument(this.view);
+            this.view.rows.clear();
+            this.view.next = 0;
+            flush();
+        }
+    }
 
-            contentString.append(text);
-            contentString.append("</div>");
+    /**
+     * Creates a filter from the level checkboxes and the caller field.
+     *
+     * @param channel The name of the channel whose logs are shown, or null to show the logs of every channel.
+     */
+    private LogFilter createFilter(String channel) {
+        int levelMask = 0;
+        for(int i = 0; i < this.levelBoxes.length; i++)
+            if(this.levelBoxes[i].isSelected())
+                levelMask |= 1 << i;
 
-            boolean doFullScroll = this.verticalScrollBar.getValue() == this.verticalScrollBar.getMaximum() - this.verticalScrollBar.getVisibleAmount();
-            int scrollValue = this.verticalScrollBar.getValue();
+        return new LogFilter(levelMask, this.callerField.getText(), channel);
+    }
 
-            textPane.setText(contentString.toString());
+    private LogView createView(String channel, LogFilter filter) {
+        JTextPane textPane = new JTextPane();
+        textPane.setEditable(false);
+        textPane.setEditorKit(this.editorKit);
+        textPane.setFont(new Font("monospaced", Font.PLAIN, 12));
+        textPane.addHyperlinkListener(event -> {
+            if(event.getEventType() == HyperlinkEvent.EventType.ACTIVATED)
+                toggleTrace(event.getSourceElement(), "expand".equals(event.getDescription()));
+        });
 
-            if(doFullScroll)
-                scrollToBottom();
-            else scrollTo(scrollValue);
+        return new LogView(channel, textPane, this.editorKit, filter);
+    }
 
-            logCount++;
-            collectGarbage();
+    /**
+     * Expands or collapses the stack trace of a log, by replacing the row of the log. The trace is only formatted
+     * and laid out once it is expanded. Runs on the EDT.
+     *
+     * @param link The link that was clicked, inside the row.
+     * @param expand Whether to expand the trace, or collapse it.
+     */
+    private void toggleTrace(Element link, boolean expand) {
+        LogView view = this.view;
+        int row = view.body.getElementIndex(link.getStartOffset());
+        if(row >= view.rows.size())
+            return;
+
+        LogRecord record;
+        synchronized(this.storeLock) {
+            long sequence = view.rows.get(row);
+            // The row is about to be removed.
+            if(sequence < this.store.first())
+                return;
+            record = this.store.get(sequence);
         }
-        catch(Exception ex) {
+        if(record.trace == null)
+            return;
 
+        String message = expand ? record.message + COLLAPSE_LINK + "<br>" + record.trace.html() : record.message + EXPAND_LINK;
+        StringBuilder html = new StringBuilder();
+        this.formatter.appendHtml(record.level, record.time, callerOf(record), message, this.fullTimestamp, html);
+
+        try {
+            view.document.setOuterHTML(view.body.getElement(row), html.toString());
+        }
+        catch(BadLocationException | IOException ex) {
+            ex.printStackTrace();
         }
     }
 
     /**
-     * Prints warning text.
+     * Shows the view of a channel tab. Runs on the EDT.
      *
-     * @param text The text to print.
-     * @param caller The caller of the method.
+     * Only the view of the selected tab is brought up to date with the store, so the other channels only cost the
+     * time it takes to ingest their logs. A view that was shown before keeps its rows and only appends the logs that
+     * it missed; a new one is built from the kept logs of its channel.
      */
-    public void printWarning(String text, String caller) {
-        try {
-            while(!ready)
-                TimeUnit.NANOSECONDS.sleep(10);
+    private void selectView(int index) {
+        LogView view = this.views.get(index);
+        if(view == null) {
+            String channel = index == 0 ? null : this.channelTabs.getTitleAt(index);
+            view = createView(channel, createFilter(channel));
+            resetDocument(view);
+            if(this.styled)
+                applyStyle(view);
+            this.views.set(index, view);
+        }
 
-            contentString.append("<div class=\"warning\">");
-            contentString.append(this.getTimestamp());
+        this.view.textPane.getHighlighter().removeAllHighlights();
+        this.searchSequence = -1;
+        this.view = view;
 
-            int halfLength = caller.length() / 2;
-            for(int u = 0; u < this.halfTextSpacing - halfLength; u++)
-                contentString.append("&nbsp;");
-            contentString.append(caller);
-            for(int u = 0; u < this.halfTextSpacing - halfLength; u++)
-                contentString.append("&nbsp;");
-            if(caller.length() % 2 == 0)
-                contentString.append("&nbsp;");
+        if(this.virtualized)
+            this.listModel.setFilter(view.filter);
+        else this.scrollPane.setViewportView(view.textPane);
 
-            contentString.append(text);
-            contentString.append("</div>");
+        if(this.store != null) {
+            flush();
+            scrollToBottom();
+        }
+    }
 
-            boolean doFullScroll = this.verticalScrollBar.getValue() == this.verticalScrollBar.getMaximum() - this.verticalScrollBar.getVisibleAmount();
-            int scrollValue = this.verticalScrollBar.getValue();
+    /**
+     * Shows the amount of kept logs of each level next to its checkbox, whether they are filtered out or not.
+     */
+    private void updateLevelCounts() {
+        synchronized(this.storeLock) {
+            for(int i = 0; i < this.levelBoxes.length; i++)
+                this.levelBoxes[i].setText(levelName(LogLevel.of(i)) + " (" + this.store.count(LogLevel.of(i)) + ")");
+        }
+    }
+
+    private void updateTimeline() {
+        synchronized(this.storeLock) {
+            this.timelineStrip.update(this.store);
+        }
+    }
 
-            textPane.setText(contentString.toString());
+    /**
+     * Shows how many logs were dropped or collapsed by the log, if any.
+     */
+    private void updateDroppedCounts() {
+        long dropped = this.log.getDroppedLogCount();
+        long limited = this.log.getRateLimitedLogCount();
+        long collapsed = this.log.getCollapsedLogCount();
+
+        if(dropped == 0 && limited == 0 && collapsed == 0) {
+            this.droppedLabel.setText("");
+            return;
+        }
 
-            if(doFullScroll)
-                scrollToBottom();
-            else scrollTo(scrollValue);
+        StringBuilder text = new StringBuilder();
+        if(dropped > 0)
+            text.append(String.format("Dropped: %,d", dropped));
+        if(limited > 0)
+            text.append(text.length() > 0 ? "  " : "").append(String.format("Rate-limited: %,d", limited));
+        if(collapsed > 0)
+            text.append(text.length() > 0 ? "  " : "").append(String.format("Collapsed: %,d", collapsed));
+
+        this.droppedLabel.setText(text.toString());
+    }
 
-            logCount++;
-            collectGarbage();
+    /**
+     * Adds a tab for each channel created since the last flush. The tabs are only shown once there is a channel.
+     */
+    private void updateChannelTabs() {
+        List<GammaChannel> channels = this.log.getChannels();
+        if(channels.size() == this.channelTabs.getTabCount() - 1)
+            return;
+
+        if(this.channelTabs.getTabCount() == 1) {
+            SpringLayout springLayout = (SpringLayout) this.getContentPane().getLayout();
+            springLayout.putConstraint(SpringLayout.WEST, channelTabs, 0, SpringLayout.WEST, this.getContentPane());
+            springLayout.putConstraint(SpringLayout.EAST, channelTabs, 0, SpringLayout.EAST, this.getContentPane());
+            springLayout.putConstraint(SpringLayout.NORTH, channelTabs, 5, SpringLayout.SOUTH, levelBoxes[0]);
+            springLayout.putConstraint(SpringLayout.NORTH, scrollPane, 0, SpringLayout.SOUTH, channelTabs);
+            this.getContentPane().add(this.channelTabs);
         }
-        catch(Exception ex) {
 
+        for(int i = this.channelTabs.getTabCount() - 1; i < channels.size(); i++) {
+            String name = channels.get(i).getName();
+            this.channelTabs.addTab(name, Box.createRigidArea(new Dimension()));
+            this.channelTabs.setToolTipTextAt(i + 1, "Show the logs of the " + name + " channel.");
+            this.views.add(null);
         }
+
+        this.getContentPane().revalidate();
     }
 
     /**
-     * Prints error text.
-     *
-     * @param text The text to print.
-     * @param caller The caller of the method.
+     * Gets the caller shown for a log. The view of all the channels shows the channel of each log before its caller.
      */
-    public void printError(String text, String caller) {
-        try {
-            while(!ready)
-                TimeUnit.NANOSECONDS.sleep(10);
+    String callerOf(LogRecord record) {
+        return this.log.callerOf(record, this.view.channel == null);
+    }
+
+    private void updateStatusBar() {
+        GammaLogMetrics metrics = this.log.getMetrics();
+
+        this.statusLabel.setText(String.format("Logs: %,d (%,d in total)   %,.0f logs/s   Queue: %,d   Latency: p50 %,d ms, p99 %,d ms, max %,d ms   Flush: p50 %.1f ms, p99 %.1f ms, max %.1f ms   Kept: %,d (%,.1f MiB)",
+                metrics.getLogCount(), metrics.getTotalLogCount(), metrics.getLogRate(), metrics.getQueueDepth(),
+                metrics.getLatencyP50(), metrics.getLatencyP99(), metrics.getLatencyMax(),
+                metrics.getFlushTimeP50() / 1000.0, metrics.getFlushTimeP99() / 1000.0, metrics.getFlushTimeMax() / 1000.0,
+                metrics.getRetainedLogCount(), metrics.getRetainedLogSize() / (1024.0 * 1024.0)));
+        this.statusLabel.setToolTipText(String.format("Verbose: %,.0f/s, Debug: %,.0f/s, Info: %,.0f/s, Warning: %,.0f/s, Error: %,.0f/s",
+                metrics.getVerboseRate(), metrics.getDebugRate(), metrics.getInfoRate(), metrics.getWarningRate(), metrics.getErrorRate()));
+    }
+
+    private static String levelName(LogLevel level) {
+        String name = level.name();
+        return name.charAt(0) + name.substring(1).toLowerCase();
+    }
+
+    /**
+     * Gets the query of the last search, whose occurrences are highlighted.
+     */
+    String getSearchQuery() {
+        return this.searchQuery;
+    }
+
+    static int indexOfIgnoreCase(CharSequence text, String query, int from) {
+        if(query.isEmpty())
+            return -1;
+
+        for(int i = from; i <= text.length() - query.length(); i++) {
+            int j = 0;
+            while(j < query.length() && equalsIgnoreCase(text.charAt(i + j), query.charAt(j)))
+                j++;
+            if(j == query.length())
+                return i;
+        }
+
+        return -1;
+    }
+
+    private static boolean equalsIgnoreCase(char a, char b) {
+        return a == b || Character.toLowerCase(a) == Character.toLowerCase(b);
+    }
 
-            contentString.append("<div class=\"error\">");
-            contentString.append(this.getTimestamp());
+    /**
+     * Appends the element specs of a log to the rows. Plain text messages are copied as they are, without going
+     * through the HTML parser. HTML messages are parsed once, and cached, so they are not parsed again when the view
+     * is rebuilt.
+     */
+    private void render(LogRecord record, ArrayList<ElementSpec> rows) {
+        StringBuilder line = this.line;
+        line.setLength(0);
+        this.formatter.appendTimestamp(record.time, this.fullTimestamp, line);
+        this.formatter.appendCaller(callerOf(record), false, line);
+
+        // The summary of an exception is followed by a link that expands its trace. Identical exceptions have
+        // identical messages, so the message is still parsed once.
+        String message = record.trace == null ? record.message : record.message + EXPAND_LINK;
+        ElementSpec[] parsed = null;
+        if(message.indexOf('<') < 0 && message.indexOf('&') < 0) {
+            for(int i = 0; i < message.length(); i++) {
+                char c = message.charAt(i);
+                // Like the parser does, line breaks and other control characters become spaces.
+                line.append(c < ' ' ? ' ' : c);
+            }
+        }
+        else {
+            parsed = this.parsedMessages.get(message);
+            if(parsed == null) {
+                parsed = this.view.document.parseMessage(this.view.body, message);
+                this.parsedMessages.put(message, parsed);
+            }
+        }
+
+        char[] text = new char[line.length()];
+        line.getChars(0, text.length, text, 0);
+        if(parsed == null)
+            LogDocument.appendRow(record.level, text, rows);
+        else LogDocument.appendRow(record.level, text, parsed, rows);
+    }
 
-            int halfLength = caller.length() / 2;
-            for(int u = 0; u < this.halfTextSpacing - halfLength; u++)
-                contentString.append("&nbsp;");
-            contentString.append(caller);
-            for(int u = 0; u < this.halfTextSpacing - halfLength; u++)
-                contentString.append("&nbsp;");
-            if(caller.length() % 2 == 0)
-                contentString.append("&nbsp;");
+    /**
+     * Brings the view up to date with the store. Runs on the EDT.
+     */
+    private void flush() {
+        long start = System.nanoTime();
+        showNewLogs();
 
-            contentString.append(text);
-            contentString.append("</div>");
+        long now = System.currentTimeMillis();
+        synchronized(this.storeLock) {
+            this.log.metrics.recordShown(this.store, now);
+        }
+        this.log.metrics.flushTime.record((System.nanoTime() - start) / 1000, now);
+    }
+
+    private void showNewLogs() {
+        updateChannelTabs();
+        updateLevelCounts();
+        updateDroppedCounts();
+        updateTimeline();
+
+        if(this.virtualized) {
+            synchronized(this.storeLock) {
+                this.flushScheduled = false;
+            }
 
             boolean doFullScroll = this.verticalScrollBar.getValue() == this.verticalScrollBar.getMaximum() - this.verticalScrollBar.getVisibleAmount();
-            int scrollValue = this.verticalScrollBar.getValue();
 
-            textPane.setText(contentString.toString());
+            this.listModel.update();
 
             if(doFullScroll)
                 scrollToBottom();
-            else scrollTo(scrollValue);
+            return;
+        }
+
+        LogView view = this.view;
+        ArrayList<LogRecord> records = new ArrayList<>();
+        int shown = view.rows.size();
+        int evicted;
+
+        synchronized(this.storeLock) {
+            this.flushScheduled = false;
 
-            logCount++;
-            collectGarbage();
+            evicted = view.rows.countBefore(this.store.first());
+            this.store.select(view.filter, view.next, view.rows);
+            for(int i = shown; i < view.rows.size(); i++)
+                records.add(this.store.get(view.rows.get(i)));
+            view.next = this.store.next();
         }
-        catch(Exception ex) {
 
+        boolean doFullScroll = this.verticalScrollBar.getValue() == this.verticalScrollBar.getMaximum() - this.verticalScrollBar.getVisibleAmount();
+
+        try {
+            if(evicted > 0 && evicted == shown) {
+                // Everything in the document was evicted.
+                resetDocument(view);
+                view.rows.removeFirst(evicted);
+            }
+            else if(evicted >= evictionChunk()) {
+                // Removing the evicted logs in chunks keeps the relayout cost low.
+                Element last = view.body.getElement(evicted - 1);
+                int start = view.body.getElement(0).getStartOffset();
+                view.document.remove(start, last.getEndOffset() - start);
+                view.rows.removeFirst(evicted);
+            }
+
+            if(!records.isEmpty()) {
+                ArrayList<ElementSpec> rows = new ArrayList<>(records.size() * 7);
+                for(int i = 0; i < records.size(); i++)
+                    render(records.get(i), rows);
+
+                view.document.appendRows(view.body, view.empty, rows);
+                view.empty = false;
+            }
+        }
+        catch(BadLocationException ex) {
+            ex.printStackTrace();
+        }
+
+        if(doFullScroll)
+            scrollToBottom();
+    }
+
+    private int evictionChunk() {
+        return Math.max(1, this.log.getMaxLogCount() / 16);
+    }
+
+    private static void resetDocument(LogView view) {
+        // The document keeps its style sheet, so the rules are not parsed again.
+        view.textPane.setText(EMPTY_DOCUMENT);
+        view.document = (LogDocument) view.textPane.getDocument();
+        view.body = findElement(view.document.getDefaultRootElement(), HTML.Tag.BODY);
+        view.empty = true;
+    }
+
+    private static Element findElement(Element parent, HTML.Tag tag) {
+        if(parent.getAttributes().getAttribute(StyleConstants.NameAttribute) == tag)
+            return parent;
+
+        for(int i = 0; i < parent.getElementCount(); i++) {
+            Element element = findElement(parent.getElement(i), tag);
+            if(element != null)
+                return element;
         }
+
+        return null;
+    }
+
+    /**
+     * Gets a channel of the log, creating it if it does not exist yet. Each channel is shown in its own tab, next to
+     * the tab which shows every log.
+     *
+     * @param name The name of the channel.
+     */
+    public GammaChannel getChannel(String name) {
+        return this.log.getChannel(name);
     }
 
     /**
      * Clears the console.
      */
     public void clear() {
-        this.contentString = new StringBuilder("<html><head><style>div { white-space: nowrap; font-family: " + textPane.getFont().getFamily() + "; width: 100%; border-top: 1px solid " + String.format("#%02x%02x%02x", this.borderColor.getRed(), this.borderColor.getGreen(), this.borderColor.getBlue()) + "; padding-top: 5px; padding-bottom: 5px; margin-top: 0px; } .debug { background-color: " + String.format("#%02x%02x%02x", this.debugColor.getRed(), this.debugColor.getGreen(), this.debugColor.getBlue()) + "; } .info { background-color: " + String.format("#%02x%02x%02x", this.infoColor.getRed(), this.infoColor.getGreen(), this.infoColor.getBlue()) + "; } .warning { background-color: " + String.format("#%02x%02x%02x", this.warningColor.getRed(), this.warningColor.getGreen(), this.warningColor.getBlue()) + "; } .error { background-color: " + String.format("#%02x%02x%02x", this.errorColor.getRed(), this.errorColor.getGreen(), this.errorColor.getBlue()) + "; }</style></head>");
-        this.textPane.setText(contentString.toString());
+        this.log.clear();
     }
 
-    private void collectGarbage() {
-        if(logCount >= 65536) {
-            save();
-            clear();
-        }
+    /**
+     * Saves the log in a file, in the log file format (HTML by default). If a log directory is set, the logs are
+     * already being saved there, so this only writes the buffered logs to the current file.
+     *
+     * The file is written on a background thread, so this does not wait.
+     */
+    public void save() {
+        this.log.save();
     }
 
     /**
-     * Saves the log in a file (HTML format).
+     * Loads logs saved in the binary format into the console, after the logs that it already holds. The logs keep
+     * their original timestamps.
+     *
+     * @param file The binary log file.
      */
-    public void save() {
-        try {
-            File log = new File("." + File.separator + new Timestamp(System.currentTimeMillis()).toString().replace(' ', '_').replace(':', '-') + "_log.html");
-            log.createNewFile();
+    public void load(File file) throws IOException {
+        this.log.load(file);
+    }
 
-            FileOutputStream fos = new FileOutputStream(log);
-            fos.write(this.textPane.getText().getBytes());
-            fos.close();
-        } catch(Exception ex) {
-            ex.printStackTrace();
-        }
+    /**
+     * Converts a file saved in the binary format into an HTML file, styled like this console.
+     *
+     * @param source The binary log file.
+     * @param destination The HTML file to create.
+     */
+    public void convertToHtml(File source, File destination) throws IOException {
+        this.log.convertToHtml(source, destination);
     }
 
-    private String getTimestamp() {
-        if(fullTimestamp)
-            return new Timestamp(System.currentTimeMillis()).toString();
+    /**
+     * Starts streaming the logs of the console on a loopback TCP port, so that they can be followed from another
+     * process with {@link #connect(String, int)} or {@link GammaTail}.
+     *
+     * @param port The port to listen on, or 0 for any free port.
+     * @param backfill The amount of kept logs sent to each new subscriber.
+     * @return The port that the server listens on.
+     */
+    public int startServer(int port, int backfill) throws IOException {
+        return this.log.startServer(port, backfill);
+    }
 
-        StringBuilder sb = new StringBuilder();
-        LocalTime lt = LocalTime.now();
-        sb.append(String.format("%02d", lt.getHour()));
-        sb.append(":");
-        sb.append(String.format("%02d", lt.getMinute()));
-        sb.append(":");
-        sb.append(String.format("%02d", lt.getSecond()));
+    /**
+     * Stops streaming the logs of the console.
+     */
+    public void stopServer() throws IOException {
+        this.log.stopServer();
+    }
 
-        return sb.toString();
+    /**
+     * Shows the logs streamed by another console (see {@link #startServer(int, int)}), starting with its most
+     * recent ones.
+     *
+     * @param host The host of the server.
+     * @param port The port of the server.
+     */
+    public void connect(String host, int port) throws IOException {
+        this.log.connect(host, port);
     }
 
     private void scrollToBottom() {
         SwingUtilities.invokeLater(() -> { this.verticalScrollBar.setValue(this.verticalScrollBar.getMaximum() - this.verticalScrollBar.getVisibleAmount()); });
     }
-
-    private void scrollTo(int n) {
-        SwingUtilities.invokeLater(() -> { this.verticalScrollBar.setValue(n); });
-    }
 }
@@ -0,0 +1,1272 @@
+/**
+ * GammaConsole (https://github.com/UnexomWid/GammaConsole)
+ *
+ * This project is licensed under the MIT license.
+ * Copyright (c) 2019 UnexomWid (https://uw.exom.dev)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the
+ * following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package me.unexomwid.gammaconsole;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+import java.awt.Color;
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Proxy;
+import java.net.Socket;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The logging core of the console: the print methods, the kept logs and the log files.
+ *
+ * It does not use Swing, so it also runs on headless machines. A GammaConsole window can be attached to it at
+ * any time, and shows the logs that it still keeps.
+ *
+ * @author UnexomWid
+ */
+public class GammaLog {
+
+    private volatile int logCount;
+    /**
+     * Gets the amount of logs printed (or loaded) since the log was last cleared.
+     */
+    public int getLogCount() {
+        return this.logCount;
+    }
+
+    private volatile long totalLogCount;
+
+    private final LongAdder droppedLogs = new LongAdder();
+    /**
+     * Gets the amount of logs that were dropped by the overload policy, because the console fell behind.
+     */
+    public long getDroppedLogCount() {
+        return this.droppedLogs.sum();
+    }
+
+    private volatile long rateLimitedLogCount;
+    /**
+     * Gets the amount of logs that were dropped by the caller rate limit.
+     */
+    public long getRateLimitedLogCount() {
+        return this.rateLimitedLogCount;
+    }
+
+    private volatile long collapsedLogCount;
+    /**
+     * Gets the amount of repeated messages that were collapsed.
+     */
+    public long getCollapsedLogCount() {
+        return this.collapsedLogCount;
+    }
+
+    private volatile OverloadPolicy overloadPolicy;
+    /**
+     * Gets what to do with the printed logs when the console cannot keep up with them.
+     */
+    public OverloadPolicy getOverloadPolicy() {
+        return this.overloadPolicy;
+    }
+    /**
+     * Sets what to do with the printed logs when the console cannot keep up with them.
+     *
+     * @param overloadPolicy The overload policy.
+     */
+    public void setOverloadPolicy(OverloadPolicy overloadPolicy) {
+        this.overloadPolicy = overloadPolicy;
+    }
+
+    private volatile int sampleRate;
+    /**
+     * Gets how many logs share a single kept log, when the SAMPLE overload policy is sampling.
+     */
+    public int getSampleRate() {
+        return this.sampleRate;
+    }
+    /**
+     * Sets how many logs share a single kept log, when the SAMPLE overload policy is sampling.
+     *
+     * @param sampleRate One in how many logs is kept.
+     */
+    public void setSampleRate(int sampleRate) {
+        this.sampleRate = Math.max(1, sampleRate);
+    }
+
+    private volatile int callerRateLimit;
+    /**
+     * Gets the maximum amount of logs that each caller can print per second (0 means no limit).
+     */
+    public int getCallerRateLimit() {
+        return this.callerRateLimit;
+    }
+    /**
+     * Sets the maximum amount of logs that each caller can print per second. The logs over the limit are dropped,
+     * and reported once the second is over.
+     *
+     * @param callerRateLimit The maximum amount of logs per caller per second, or 0 for no limit.
+     */
+    public void setCallerRateLimit(int callerRateLimit) {
+        this.callerRateLimit = Math.max(0, callerRateLimit);
+    }
+
+    private volatile boolean collapseRepeats;
+    /**
+     * Gets whether repeated messages are collapsed.
+     */
+    public boolean getCollapseRepeats() {
+        return this.collapseRepeats;
+    }
+    /**
+     * Sets whether to collapse repeated messages. When a caller prints the same message again, only a single
+     * "Last message repeated n times" log is kept for the repeats.
+     *
+     * @param collapseRepeats Whether to collapse repeated messages.
+     */
+    public void setCollapseRepeats(boolean collapseRepeats) {
+        this.collapseRepeats = collapseRepeats;
+    }
+
+    /**
+     * Whether to save the full timestamp for each log, or just the hour, minute and second.
+     */
+    public boolean fullTimestamp;
+
+    private volatile boolean threadNameVisible;
+    /**
+     * Gets whether the name of the thread that printed each log is shown after its caller.
+     */
+    public boolean isThreadNameVisible() {
+        return this.threadNameVisible;
+    }
+    /**
+     * Sets whether to show the name of the thread that printed each log after its caller, in the console and in the
+     * saved HTML files.
+     *
+     * @param threadNameVisible Whether to show the name of the thread that printed each log.
+     */
+    public void setThreadNameVisible(boolean threadNameVisible) {
+        this.threadNameVisible = threadNameVisible;
+    }
+
+    private int textSpacing;
+    /**
+     * Gets the amount of spaces to write between the timestamp and the message.
+     */
+    public int getTextSpacing() {
+        return this.textSpacing;
+    }
+    /**
+     * Sets the amount of spaces to write between the timestamp and the message.
+     */
+    public void setTextSpacing(int textSpacing) {
+        this.textSpacing = textSpacing;
+        this.formatter.setHalfTextSpacing(this.textSpacing / 2);
+    }
+
+    private int maxLogCount;
+    /**
+     * Gets the maximum amount of logs kept in memory.
+     */
+    public int getMaxLogCount() {
+        return this.maxLogCount;
+    }
+    /**
+     * Sets the maximum amount of logs kept in memory. When the limit is reached, the oldest logs are discarded.
+     * Must be set before start().
+     *
+     * @param maxLogCount The maximum amount of logs kept in memory.
+     */
+    public void setMaxLogCount(int maxLogCount) {
+        this.maxLogCount = Math.max(1, maxLogCount);
+    }
+
+    private long maxLogSize;
+    /**
+     * Gets the maximum size of the logs kept in memory, in bytes (0 means no limit).
+     */
+    public long getMaxLogSize() {
+        return this.maxLogSize;
+    }
+    /**
+     * Sets the maximum size of the logs kept in memory, in bytes. When the limit is reached, the oldest logs are
+     * discarded. Must be set before start().
+     *
+     * @param maxLogSize The maximum size of the logs kept in memory, in bytes, or 0 for no limit.
+     */
+    public void setMaxLogSize(long maxLogSize) {
+        this.maxLogSize = Math.max(0, maxLogSize);
+    }
+
+    private boolean fullHistory;
+    /**
+     * Gets whether the logs discarded from memory are kept in temp files.
+     */
+    public boolean getFullHistory() {
+        return this.fullHistory;
+    }
+    /**
+     * Sets whether the logs discarded from memory are kept in memory-mapped temp files, instead of being discarded.
+     * They can still be scrolled to in the virtualized view, searched and saved, while the heap only holds the
+     * newest logs. Must be set before start().
+     *
+     * @param fullHistory Whether to keep the logs discarded from memory in temp files.
+     */
+    public void setFullHistory(boolean fullHistory) {
+        this.fullHistory = fullHistory;
+    }
+
+    private File logDirectory;
+    /**
+     * Gets the directory in which the logs are continuously saved, or null if they are only saved by save().
+     */
+    public File getLogDirectory() {
+        return this.logDirectory;
+    }
+    /**
+     * Sets the directory in which the logs are continuously saved, as they are printed. Must be set before start().
+     *
+     * @param logDirectory The directory in which the logs are saved, or null to only save them when save() is called.
+     */
+    public void setLogDirectory(File logDirectory) {
+        this.logDirectory = logDirectory;
+    }
+
+    private long maxLogFileSize;
+    /**
+     * Gets the size after which a new log file is started, in bytes (0 means no limit).
+     */
+    public long getMaxLogFileSize() {
+        return this.maxLogFileSize;
+    }
+    /**
+     * Sets the size after which a new log file is started, in bytes.
+     *
+     * @param maxLogFileSize The size after which a new log file is started, in bytes, or 0 for no limit.
+     */
+    public void setMaxLogFileSize(long maxLogFileSize) {
+        this.maxLogFileSize = Math.max(0, maxLogFileSize);
+    }
+
+    private long logFileInterval;
+    /**
+     * Gets the time after which a new log file is started, in milliseconds (0 means no limit).
+     */
+    public long getLogFileInterval() {
+        return this.logFileInterval;
+    }
+    /**
+     * Sets the time after which a new log file is started, in milliseconds.
+     *
+     * @param logFileInterval The time after which a new log file is started, in milliseconds, or 0 for no limit.
+     */
+    public void setLogFileInterval(long logFileInterval) {
+        this.logFileInterval = Math.max(0, logFileInterval);
+    }
+
+    private LogFileFormat logFileFormat;
+    /**
+     * Gets the format in which the logs are saved.
+     */
+    public LogFileFormat getLogFileFormat() {
+        return this.logFileFormat;
+    }
+    /**
+     * Sets the format in which the logs are saved, both by save() and in the log directory.
+     *
+     * @param logFileFormat The format in which the logs are saved.
+     */
+    public void setLogFileFormat(LogFileFormat logFileFormat) {
+        this.logFileFormat = logFileFormat;
+    }
+
+    private Color borderColor;
+    /**
+     * Gets the color of the border between the lines.
+     */
+    public Color getBorderColor() {
+        return this.borderColor;
+    }
+    /**
+     * Sets the color of the border between the lines.
+     *
+     * @param borderColor The color of the border between the lines.
+     */
+    public void setBorderColor(Color borderColor) {
+        this.borderColor = borderColor;
+        this.style = null;
+    }
+
+    private Color debugColor;
+    /**
+     * Gets the color for Debug messages.
+     */
+    public Color getDebugColor() {
+        return debugColor;
+    }
+    /**
+     * Sets the color for Debug messages.
+     *
+     * @param color The color for Debug messages.
+     */
+    public void setDebugColor(Color color) {
+        this.debugColor = color;
+        this.style = null;
+    }
+
+    private Color infoColor;
+    /**
+     * Gets the color for Info messages.
+     */
+    public Color getInfoColor() {
+        return infoColor;
+    }
+    /**
+     * Sets the color for Info messages.
+     *
+     * @param color The color for Info messages.
+     */
+    public void setInfoColor(Color color) {
+        this.infoColor = color;
+        this.style = null;
+    }
+
+    private Color warningColor;
+    /**
+     * Gets the color for Warning messages.
+     */
+    public Color getWarningColor() {
+        return warningColor;
+    }
+    /**
+     * Sets the color for Warning messages.
+     *
+     * @param color The color for Warning messages.
+     */
+    public void setWarningColor(Color color) {
+        this.warningColor = color;
+        this.style = null;
+    }
+
+    private Color errorColor;
+    /**
+     * Gets the color for Error messages.
+     */
+    public Color getErrorColor() {
+        return errorColor;
+    }
+    /**
+     * Sets the color for Error messages.
+     *
+     * @param color The color for Error messages.
+     */
+    public void setErrorColor(Color color) {
+        this.errorColor = color;
+        this.style = null;
+    }
+
+    /**
+     * The cached CSS rules of the logs, or null after a color changes.
+     */
+    private volatile String style;
+
+    private static final int BUFFER_CAPACITY = 16384;
+    private static final long BUFFER_WAIT_NANOS = 1000000;
+    private static final long FRAME_NANOS = 1000000000L / 60;
+    private static final int LOAD_BATCH_SIZE = 4096;
+    private static final int MAX_TRACES = 256;
+
+    final LogFormatter formatter;
+    final LogMetrics metrics;
+    /**
+     * The logs printed by each thread, which wait to be merged by the ingest thread.
+     */
+    private final LogBuffers buffers;
+    /**
+     * Held while draining the buffers, so that printing threads can drop their oldest log.
+     */
+    private final ReentrantLock bufferConsumer;
+    private final LogThrottle throttle;
+    private volatile Thread ingestThread;
+
+    final Object storeLock;
+    LogStore store;
+    private FileSink fileSink;
+    private LogServer server;
+    private final ArrayList<Runnable> listeners;
+    /**
+     * The channels, in the order in which they were created.
+     */
+    private final LinkedHashMap<String, GammaChannel> channels;
+    /**
+     * The most recently printed stack traces, so that repeated exceptions share them.
+     */
+    private final LinkedHashMap<LogTrace, LogTrace> traces;
+
+    /**
+     * The search index is only kept up to date while a window is attached.
+     */
+    private final SearchIndex searchIndex;
+    private volatile boolean indexing;
+    private long searchIndexFirst;
+    private long searchIndexNext;
+
+    public GammaLog() {
+        this.formatter = new LogFormatter();
+        this.metrics = new LogMetrics();
+        this.buffers = new LogBuffers(BUFFER_CAPACITY);
+        this.bufferConsumer = new ReentrantLock();
+        this.throttle = new LogThrottle();
+        this.storeLock = new Object();
+        this.listeners = new ArrayList<>();
+        this.channels = new LinkedHashMap<>();
+        this.traces = new LinkedHashMap<LogTrace, LogTrace>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<LogTrace, LogTrace> eldest) {
+                return this.size() > MAX_TRACES;
+            }
+        };
+        this.searchIndex = new SearchIndex();
+
+        this.logCount = 0;
+        this.fullTimestamp = false;
+        this.setTextSpacing(30);
+        this.setMaxLogCount(65536);
+        this.setMaxLogSize(0);
+        this.setMaxLogFileSize(16 * 1024 * 1024);
+        this.setLogFileInterval(0);
+        this.setLogFileFormat(LogFileFormat.HTML);
+        this.setOverloadPolicy(OverloadPolicy.BLOCK);
+        this.setSampleRate(10);
+        this.setCallerRateLimit(0);
+        this.setCollapseRepeats(false);
+
+        this.setBorderColor(new Color(172, 172, 172));
+        this.setDebugColor(new Color(225, 225, 225));
+        this.setInfoColor(new Color(215, 255, 215));
+        this.setWarningColor(new Color(255, 255, 215));
+        this.setErrorColor(new Color(255, 215, 215));
+    }
+
+    /**
+     * Starts moving the printed logs into memory (and into the log directory, if it is set). Logs printed before
+     * this are buffered. Calling it again does nothing.
+     */
+    public synchronized void start() {
+        if(this.ingestThread != null)
+            return;
+
+        ensureStore();
+        if(this.logDirectory != null)
+            this.fileSink = new FileSink(this, this.logDirectory, this.logFileFormat, this.maxLogFileSize, this.logFileInterval);
+
+        this.ingestThread = new Thread(this::ingest, "GammaConsole-ingest");
+        this.ingestThread.setDaemon(true);
+        this.buffers.setConsumer(this.ingestThread);
+        this.ingestThread.start();
+    }
+
+    /**
+     * Creates the store, using the current limits, if it does not exist yet.
+     */
+    private void ensureStore() {
+        synchronized(this.storeLock) {
+            if(this.store == null)
+                this.store = new LogStore(this.maxLogCount, this.maxLogSize, this.fullHistory ? new LogArchive() : null);
+        }
+    }
+
+    /**
+     * Registers a listener which is called, while holding the store lock, whenever logs are added to the store or
+     * the store is cleared. The listener must return quickly. Registering a listener also starts keeping the search
+     * index up to date, starting with the logs that are already kept.
+     */
+    void addListener(Runnable listener) {
+        synchronized(this.storeLock) {
+            this.listeners.add(listener);
+            this.indexing = true;
+        }
+    }
+
+    private void notifyListeners() {
+        for(int i = 0; i < this.listeners.size(); i++)
+            this.listeners.get(i).run();
+    }
+
+    /**
+     * Prints verbose text.
+     *
+     * @param text The text to print.
+     */
+    public void printVerbose(String text) {
+        printVerbose(text, "VERBOSE");
+    }
+
+    /**
+     * Prints debug text.
+     *
+     * @param text The text to print.
+     */
+    public void printDebug(String text) {
+        printDebug(text, "DEBUG");
+    }
+
+    /**
+     * Prints info text.
+     *
+     * @param text The text to print.
+     */
+    public void printInfo(String text) {
+        printInfo(text, "INFO");
+    }
+
+    /**
+     * Prints warning text.
+     *
+     * @param text The text to print.
+     */
+    public void printWarning(String text) {
+        printWarning(text, "WARNING");
+    }
+
+    /**
+     * Prints error text.
+     *
+     * @param text The text to print.
+     */
+    public void printError(String text) {
+        printError(text, "ERROR");
+    }
+
+    /**
+     * Prints verbose text.
+     *
+     * @param text The text to print.
+     * @param caller The caller of the method.
+     */
+    public void printVerbose(String text, String caller) {
+        print(LogLevel.VERBOSE, text, caller, null);
+    }
+
+    /**
+     * Prints debug text.
+     *
+     * @param text The text to print.
+     * @param caller The caller of the method.
+     */
+    public void printDebug(String text, String caller) {
+        print(LogLevel.DEBUG, text, caller, null);
+    }
+
+    /**
+     * Prints info text.
+     *
+     * @param text The text to print.
+     * @param caller The caller of the method.
+     */
+    public void printInfo(String text, String caller) {
+        print(LogLevel.INFO, text, caller, null);
+    }
+
+    /**
+     * Prints warning text.
+     *
+     * @param text The text to print.
+     * @param caller The caller of the method.
+     */
+    public void printWarning(String text, String caller) {
+        print(LogLevel.WARNING, text, caller, null);
+    }
+
+    /**
+     * Prints error text.
+     *
+     * @param text The text to print.
+     * @param caller The caller of the method.
+     */
+    public void printError(String text, String caller) {
+        print(LogLevel.ERROR, text, caller, null);
+    }
+
+    /**
+     * Prints an exception, shown as a one-line summary whose stack trace can be expanded. The trace is only
+     * formatted when it is needed, and a repeated exception shares the trace of the previous one.
+     *
+     * @param throwable The exception to print.
+     */
+    public void printError(Throwable throwable) {
+        printError(throwable, "ERROR");
+    }
+
+    /**
+     * Prints an exception, shown as a one-line summary whose stack trace can be expanded.
+     *
+     * @param throwable The exception to print.
+     * @param caller The caller of the method.
+     */
+    public void printError(Throwable throwable, String caller) {
+        printError(null, throwable, caller, null);
+    }
+
+    /**
+     * Prints error text, followed by the stack trace of an exception, which can be expanded.
+     *
+     * @param text The text to print.
+     * @param throwable The exception to print.
+     * @param caller The caller of the method.
+     */
+    public void printError(String text, Throwable throwable, String caller) {
+        printError(text, throwable, caller, null);
+    }
+
+    /**
+     * Gets a channel of the log, creating it if it does not exist yet. The logs printed on a channel are kept along
+     * with every other log, and shown in their own tab by the console.
+     *
+     * @param name The name of the channel.
+     */
+    public GammaChannel getChannel(String name) {
+        if(name == null || name.isEmpty())
+            throw new IllegalArgumentException("The name of a channel cannot be empty");
+
+        synchronized(this.channels) {
+            GammaChannel channel = this.channels.get(name);
+            if(channel == null) {
+                channel = new GammaChannel(this, name);
+                this.channels.put(name, channel);
+            }
+
+            return channel;
+        }
+    }
+
+    /**
+     * Gets the channels of the log, in the order in which they were created.
+     */
+    public List<GammaChannel> getChannels() {
+        synchronized(this.channels) {
+            return Collections.unmodifiableList(new ArrayList<>(this.channels.values()));
+        }
+    }
+
+    /**
+     * @param channel The name of the channel, or null for the log itself.
+     */
+    void print(LogLevel level, String text, String caller, String channel) {
+        print(level, text, caller, channel, null);
+    }
+
+    /**
+     * @param text The text to print, or null to print the summary of the exception.
+     * @param channel The name of the channel, or null for the log itself.
+     */
+    void printError(String text, Throwable throwable, String caller, String channel) {
+        LogTrace trace = capture(throwable);
+        print(LogLevel.ERROR, text == null ? trace.summaryHtml() : text, caller, channel, trace);
+    }
+
+    /**
+     * Captures the stack trace of an exception. A repeated exception reuses the trace (and the summary) that was
+     * captured the first time.
+     */
+    LogTrace capture(Throwable throwable) {
+        LogTrace trace = LogTrace.of(throwable);
+
+        synchronized(this.traces) {
+            LogTrace previous = this.traces.putIfAbsent(trace, trace);
+            return previous != null ? previous : trace;
+        }
+    }
+
+    private void print(LogLevel level, String text, String caller, String channel, LogTrace trace) {
+        submit(new LogRecord(level, System.currentTimeMillis(), caller, text, Thread.currentThread().getName(), channel, trace), true);
+    }
+
+    /**
+     * Hands a log over to the ingest thread through the buffer of the current thread, applying the overload policy.
+     * A buffer only fills up when the ingest thread falls behind (or has not started yet).
+     *
+     * @param record The log.
+     * @param wait Whether the BLOCK policy may wait for room; otherwise, the log is dropped.
+     */
+    private void submit(LogRecord record, boolean wait) {
+        OverloadPolicy policy = this.overloadPolicy;
+
+        if(policy == OverloadPolicy.SAMPLE && this.buffers.ownSize() >= this.buffers.capacity() / 2 && ThreadLocalRandom.current().nextInt(this.sampleRate) != 0) {
+            this.droppedLogs.increment();
+            return;
+        }
+
+        while(!this.buffers.offer(record)) {
+            if(policy == OverloadPolicy.BLOCK && wait && isConsumerAlive())
+                LockSupport.parkNanos(BUFFER_WAIT_NANOS);
+            else if(policy == OverloadPolicy.DROP_OLDEST) {
+                // If the ingest thread is draining the buffers, there is about to be room anyway.
+                if(this.bufferConsumer.tryLock()) {
+                    try {
+                        if(this.buffers.dropOwnOldest())
+                            this.droppedLogs.increment();
+                    }
+                    finally {
+                        this.bufferConsumer.unlock();
+                    }
+                }
+                else Thread.yield();
+            }
+            else {
+                this.droppedLogs.increment();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Whether a full buffer can still be drained: either the ingest thread has not started yet, or it is running.
+     */
+    private boolean isConsumerAlive() {
+        Thread thread = this.ingestThread;
+        return thread == null || thread.isAlive();
+    }
+
+    /**
+     * Hands a log over to the ingest thread without waiting, for the logging adapters, which must not slow down the
+     * code that logs. With the BLOCK overload policy, the log is dropped if the buffer of the thread is full.
+     *
+     * @param text The message, as HTML.
+     */
+    void offer(LogLevel level, long time, String caller, String text, String thread) {
+        offer(level, time, caller, text, thread, null);
+    }
+
+    /**
+     * @param text The message, as HTML.
+     * @param trace The stack trace printed with the log, or null.
+     */
+    void offer(LogLevel level, long time, String caller, String text, String thread, LogTrace trace) {
+        submit(new LogRecord(level, time, caller, text, thread, null, trace), false);
+    }
+
+    /**
+     * Redirects System.out and System.err into the log. Each line becomes an Info log (for System.out) or an Error
+     * log (for System.err).
+     *
+     * @param echo Whether to still write the lines to the original streams.
+     */
+    public void redirectSystemStreams(boolean echo) {
+        PrintStream out = System.out;
+        PrintStream err = System.err;
+
+        System.setOut(new PrintStream(new LogOutputStream(this, LogLevel.INFO, "System.out", echo ? out : null), true));
+        System.setErr(new PrintStream(new LogOutputStream(this, LogLevel.ERROR, "System.err", echo ? err : null), true));
+    }
+
+    /**
+     * Merges the buffers of the printing threads once per frame (or as soon as one of them is half full), moves the
+     * logs into the store and notifies the listeners once.
+     */
+    private void ingest() {
+        ArrayList<LogRecord> polled = new ArrayList<>();
+        ArrayList<LogRecord> records = new ArrayList<>();
+
+        while(true) {
+            long frameStart = System.nanoTime();
+
+            // A failing log (or listener) must not stop the thread, or the printing threads would wait forever.
+            try {
+                this.bufferConsumer.lock();
+                try {
+                    this.buffers.drain(polled);
+                }
+                finally {
+                    this.bufferConsumer.unlock();
+                }
+
+                sanitize(polled);
+
+                int rateLimit = this.callerRateLimit;
+                boolean collapse = this.collapseRepeats;
+                if(rateLimit > 0 || collapse) {
+                    for(int i = 0; i < polled.size(); i++)
+                        this.throttle.add(polled.get(i), rateLimit, collapse, records);
+                    polled.clear();
+                }
+                else {
+                    // Nothing to throttle, so the polled logs are kept as they are.
+                    ArrayList<LogRecord> swap = records;
+                    records = polled;
+                    polled = swap;
+                }
+                long now = System.currentTimeMillis();
+                this.throttle.flush(now, records);
+                this.rateLimitedLogCount = this.throttle.limited();
+                this.collapsedLogCount = this.throttle.collapsed();
+                this.metrics.count(records, now);
+
+                if(!records.isEmpty()) {
+                    synchronized(this.storeLock) {
+                        long start = this.store.next();
+                        for(int i = 0; i < records.size(); i++)
+                            this.store.add(records.get(i));
+                        this.logCount += records.size();
+                        this.totalLogCount += records.size();
+
+                        // Only the printed logs are measured, not the loaded ones.
+                        if(!this.listeners.isEmpty())
+                            this.metrics.addPending(start, this.store.next());
+                        notifyListeners();
+                    }
+
+                    if(this.indexing)
+                        updateIndex();
+
+                    if(this.fileSink != null)
+                        for(int i = 0; i < records.size(); i++)
+                            this.fileSink.write(records.get(i));
+                    records.clear();
+                }
+            }
+            catch(Exception ex) {
+                ex.printStackTrace();
+                polled.clear();
+                records.clear();
+            }
+
+            long remaining = FRAME_NANOS - (System.nanoTime() - frameStart);
+            if(remaining > 0)
+                LockSupport.parkNanos(remaining);
+        }
+    }
+
+    /**
+     * Escapes the messages that are malformed HTML, so that they are shown as text and cannot break the rows that
+     * follow them. Done on the ingest thread, so that printing a message never parses it.
+     */
+    private static void sanitize(ArrayList<LogRecord> records) {
+        for(int i = 0; i < records.size(); i++) {
+            LogRecord record = records.get(i);
+            if(record.message.indexOf('<') >= 0 && !LogFormatter.isWellFormedHtml(record.message))
+                records.set(i, new LogRecord(record.level, record.time, record.caller, LogFormatter.escapeHtml(record.message), record.thread, record.channel, record.trace));
+        }
+    }
+
+    /**
+     * Adds the kept logs that are not indexed yet to the search index, and drops the evicted ones from it once in
+     * a while.
+     */
+    private void updateIndex() {
+        // Holding the index keeps the logs in the order of their sequence numbers.
+        synchronized(this.searchIndex) {
+            long start;
+            long first;
+            String[] messages;
+            String[] callers;
+
+            synchronized(this.storeLock) {
+                first = this.store.first();
+                start = Math.max(this.searchIndexNext, first);
+                messages = new String[(int) (this.store.next() - start)];
+                callers = new String[messages.length];
+
+                for(int i = 0; i < messages.length; i++) {
+                    messages[i] = this.store.message(start + i);
+                    callers[i] = this.store.caller(start + i);
+                }
+                this.searchIndexNext = this.store.next();
+            }
+
+            for(int i = 0; i < messages.length; i++)
+                this.searchIndex.add(start + i, messages[i], callers[i]);
+
+            if(first - this.searchIndexFirst >= Math.max(1, this.maxLogCount / 2)) {
+                this.searchIndex.compact(first);
+                this.searchIndexFirst = first;
+            }
+        }
+    }
+
+    /**
+     * Finds the kept logs whose message or caller contains the query (case-insensitive).
+     *
+     * @param archived Whether to also find the archived logs (see {@link #setFullHistory(boolean)}).
+     * @return The ascending sequence numbers of the matches.
+     */
+    long[] find(String query, boolean archived) {
+        if(query.isEmpty() || this.store == null)
+            return new long[0];
+
+        long[] candidates = null;
+        if(query.length() >= 3) {
+            updateIndex();
+
+            long first;
+            synchronized(this.storeLock) {
+                first = this.store.first();
+            }
+            candidates = this.searchIndex.findCandidates(query, first);
+        }
+
+        StringBuilder text = new StringBuilder();
+        long[] matches = new long[16];
+        int count = 0;
+        LogArchive archive;
+
+        synchronized(this.storeLock) {
+            // Queries shorter than a trigram cannot use the index.
+            long first = this.store.first();
+            long next = this.store.next();
+            int length = candidates == null ? (int) (next - first) : candidates.length;
+            archive = archived && this.store.oldest() < first ? this.store.archive() : null;
+
+            for(int i = 0; i < length; i++) {
+                long sequence = candidates == null ? first + i : candidates[i];
+                if(sequence < first)
+                    continue;
+
+                if(matches(this.store.message(sequence), this.store.caller(sequence), query, text)) {
+                    if(count == matches.length)
+                        matches = Arrays.copyOf(matches, 2 * count);
+                    matches[count++] = sequence;
+                }
+            }
+        }
+
+        if(archive == null)
+            return Arrays.copyOf(matches, count);
+
+        // The logs evicted while the kept ones were searched are archived by now, so nothing is missed.
+        long[] archivedMatches = archive.find(query);
+        int archivedCount = archivedMatches.length;
+        while(archivedCount > 0 && count > 0 && archivedMatches[archivedCount - 1] >= matches[0])
+            archivedCount--;
+
+        long[] all = Arrays.copyOf(archivedMatches, archivedCount + count);
+        System.arraycopy(matches, 0, all, archivedCount, count);
+        return all;
+    }
+
+    /**
+     * Checks whether the message (as plain text) or the caller of a log contains the query (case-insensitive).
+     *
+     * @param text A builder for the plain text of the message.
+     */
+    static boolean matches(String message, String caller, String query, StringBuilder text) {
+        text.setLength(0);
+        LogFormatter.appendPlainText(message, text);
+        text.append('\n').append(caller);
+
+        return GammaConsole.indexOfIgnoreCase(text, query, 0) >= 0;
+    }
+
+    /**
+     * Gets a snapshot of the metrics of the log.
+     */
+    public GammaLogMetrics getMetrics() {
+        int retainedLogCount = 0;
+        long retainedLogSize = 0;
+        synchronized(this.storeLock) {
+            if(this.store != null) {
+                retainedLogCount = this.store.count();
+                retainedLogSize = this.store.size();
+            }
+        }
+
+        long now = System.currentTimeMillis();
+        long[] latency = { this.metrics.latency.percentile(50, now), this.metrics.latency.percentile(99, now), this.metrics.latency.max(now) };
+        long[] flushTime = { this.metrics.flushTime.percentile(50, now), this.metrics.flushTime.percentile(99, now), this.metrics.flushTime.max(now) };
+
+        return new GammaLogMetrics(this.logCount, this.totalLogCount, this.metrics.levelRates(), this.buffers.size(), retainedLogCount, retainedLogSize, getDroppedLogCount(), this.rateLimitedLogCount, this.collapsedLogCount, latency, flushTime);
+    }
+
+    /**
+     * Registers the metrics of the log as an MXBean in the platform MBean server, named
+     * "me.unexomwid.gammaconsole:type=GammaLog,name=" followed by the specified name.
+     *
+     * @param name The name of the log.
+     *
+     * @return The name of the MXBean, which can be used to unregister it.
+     */
+    public ObjectName registerMBean(String name) throws JMException {
+        ObjectName objectName = new ObjectName("me.unexomwid.gammaconsole:type=GammaLog,name=" + ObjectName.quote(name));
+
+        // Every attribute is read from a new snapshot.
+        GammaLogMXBean bean = (GammaLogMXBean) Proxy.newProxyInstance(GammaLogMXBean.class.getClassLoader(), new Class<?>[] { GammaLogMXBean.class },
+                (proxy, method, arguments) -> method.invoke(getMetrics(), arguments));
+        ManagementFactory.getPlatformMBeanServer().registerMBean(new StandardMBean(bean, GammaLogMXBean.class, true), objectName);
+
+        return objectName;
+    }
+
+    /**
+     * Gets the CSS rules of the logs. They are only built again after a color changes.
+     */
+    String createStyle() {
+        String style = this.style;
+        if(style == null) {
+            style = "div { white-space: nowrap; font-family: Monospaced; width: 100%; border-top: 1px solid " + LogFormatter.toCss(this.borderColor) + "; padding-top: 5px; padding-bottom: 5px; margin-top: 0px; }"
+                + " .debug { background-color: " + LogFormatter.toCss(this.debugColor) + "; }"
+                + " .info { background-color: " + LogFormatter.toCss(this.infoColor) + "; }"
+                + " .warning { background-color: " + LogFormatter.toCss(this.warningColor) + "; }"
+                + " .error { background-color: " + LogFormatter.toCss(this.errorColor) + "; }";
+            this.style = style;
+        }
+
+        return style;
+    }
+
+    /**
+     * Gets the caller shown for a log: its caller, preceded by its channel and followed by the name of its thread,
+     * if they are shown.
+     *
+     * @param channel Whether to show the channel of the log.
+     */
+    String callerOf(LogRecord record, boolean channel) {
+        String caller = channel && record.channel != null ? record.channel + ": " + record.caller : record.caller;
+        return this.threadNameVisible ? caller + " [" + record.thread + "]" : caller;
+    }
+
+    String createHeader() {
+        return "<html><head><meta charset=\"utf-8\"><style>" + createStyle() + "</style></head>";
+    }
+
+    /**
+     * Discards the kept logs, and counts the printed logs from 0 again (see {@link #getLogCount()}).
+     */
+    public void clear() {
+        synchronized(this.searchIndex) {
+            synchronized(this.storeLock) {
+                this.logCount = 0;
+                if(this.store != null) {
+                    this.store.clear();
+                    this.searchIndexFirst = this.store.next();
+                    this.searchIndexNext = this.store.next();
+                    notifyListeners();
+                }
+            }
+
+            this.searchIndex.clear();
+        }
+    }
+
+    /**
+     * Saves the kept logs in a file, in the log file format (HTML by default). If a log directory is set, the logs
+     * are already being saved there, so this only writes the buffered logs to the current file.
+     *
+     * The kept logs are copied at once, and the file is written on a background thread, so this does not wait.
+     */
+    public void save() {
+        if(this.fileSink != null) {
+            this.fileSink.flush();
+            return;
+        }
+
+        ArrayList<LogRecord> records = new ArrayList<>();
+        LogArchive archive = null;
+        long oldest = 0;
+        long first = 0;
+        synchronized(this.storeLock) {
+            if(this.store != null) {
+                records.ensureCapacity((int) (this.store.next() - this.store.first()));
+                for(long sequence = this.store.first(); sequence < this.store.next(); sequence++)
+                    records.add(this.store.get(sequence));
+                archive = this.store.archive();
+                oldest = this.store.oldest();
+                first = this.store.first();
+            }
+        }
+
+        LogArchive archived = archive;
+        long archivedStart = oldest;
+        long archivedEnd = first;
+        LogFileFormat format = this.logFileFormat;
+
+        // Not a daemon, so that the file is complete even if the application exits meanwhile.
+        new Thread(() -> {
+            File log = FileSink.createFile(new File("."), format);
+            try(FileChannel channel = FileChannel.open(log.toPath(), StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+                LogFileWriter writer = format.createWriter(channel, this)) {
+                // The archived logs are read back one segment at a time, so they are never all on the heap.
+                for(long sequence = archivedStart; sequence < archivedEnd; sequence++) {
+                    LogRecord record = archived.get(sequence);
+                    if(record != null)
+                        writer.write(record);
+                }
+                for(LogRecord record : records)
+                    writer.write(record);
+            }
+            catch(Exception ex) {
+                ex.printStackTrace();
+            }
+        }, "GammaConsole-save").start();
+    }
+
+    /**
+     * Loads logs saved in the binary format, after the logs that are already kept. The logs keep their original
+     * timestamps.
+     *
+     * @param file The binary log file.
+     */
+    public void load(File file) throws IOException {
+        ensureStore();
+
+        try(BinaryLogReader reader = new BinaryLogReader(file)) {
+            ArrayList<LogRecord> records = new ArrayList<>(LOAD_BATCH_SIZE);
+
+            LogRecord record;
+            while((record = reader.next()) != null) {
+                records.add(record);
+                if(records.size() == LOAD_BATCH_SIZE) {
+                    replay(records);
+                    records.clear();
+                }
+            }
+            replay(records);
+        }
+    }
+
+    /**
+     * Moves loaded logs straight into the store, without going through the buffers.
+     */
+    private void replay(ArrayList<LogRecord> records) {
+        // The channels of the loaded logs get their own tabs, like the ones created by this application.
+        for(int i = 0; i < records.size(); i++)
+            if(records.get(i).channel != null)
+                getChannel(records.get(i).channel);
+
+        synchronized(this.storeLock) {
+            for(int i = 0; i < records.size(); i++)
+                this.store.add(records.get(i));
+            this.logCount += records.size();
+            this.totalLogCount += records.size();
+            notifyListeners();
+        }
+
+        if(this.indexing)
+            updateIndex();
+    }
+
+    /**
+     * Starts streaming the logs on a loopback TCP port, so that they can be followed from another process with
+     * {@link #connect(String, int)} or {@link GammaTail}. Each subscriber first gets the most recent kept logs. A
+     * subscriber that falls too far behind is disconnected, so that it never slows down the application.
+     *
+     * @param port The port to listen on, or 0 for any free port.
+     * @param backfill The amount of kept logs sent to each new subscriber.
+     * @return The port that the server listens on.
+     */
+    public synchronized int startServer(int port, int backfill) throws IOException {
+        if(backfill < 0)
+            throw new IllegalArgumentException("The backfill cannot be negative");
+
+        stopServer();
+        ensureStore();
+        this.server = new LogServer(this, port, backfill);
+
+        return this.server.getPort();
+    }
+
+    /**
+     * Stops streaming the logs and disconnects every subscriber. Does nothing if the server is not started.
+     */
+    public synchronized void stopServer() throws IOException {
+        if(this.server == null)
+            return;
+
+        this.server.close();
+        this.server = null;
+    }
+
+    /**
+     * Follows the logs streamed by the server of another log (see {@link #startServer(int, int)}). The most recent
+     * logs of the server are added first, then every new one, with their original timestamps, threads and channels.
+     * When the connection ends, a warning is added.
+     *
+     * @param host The host of the server.
+     * @param port The port of the server.
+     */
+    public void connect(String host, int port) throws IOException {
+        ensureStore();
+
+        Socket socket = new Socket(host, port);
+        BinaryLogReader reader;
+        try {
+            reader = new BinaryLogReader(new BufferedInputStream(socket.getInputStream()));
+        }
+        catch(IOException ex) {
+            socket.close();
+            throw ex;
+        }
+
+        Thread client = new Thread(() -> receive(reader, host + ":" + port), "GammaConsole-client");
+        client.setDaemon(true);
+        client.start();
+    }
+
+    /**
+     * Moves the logs read from a server into the store, one block at a time, until the connection ends.
+     */
+    private void receive(BinaryLogReader reader, String address) {
+        ArrayList<LogRecord> records = new ArrayList<>(LOAD_BATCH_SIZE);
+
+        try(BinaryLogReader input = reader) {
+            LogRecord record;
+            while((record = input.next()) != null) {
+                records.add(record);
+                if(records.size() == LOAD_BATCH_SIZE || !input.hasBufferedRecords()) {
+                    replay(records);
+                    records.clear();
+                }
+            }
+        }
+        catch(IOException ex) {
+            // The connection was lost; the warning below tells that no more logs will come.
+        }
+
+        records.add(new LogRecord(LogLevel.WARNING, System.currentTimeMillis(), "GammaConsole", "Disconnected from " + address, Thread.currentThread().getName()));
+        replay(records);
+    }
+
+    /**
+     * Converts a file saved in the binary format into an HTML file, styled like the console.
+     *
+     * @param source The binary log file.
+     * @param destination The HTML file to create.
+     */
+    public void convertToHtml(File source, File destination) throws IOException {
+        try(BinaryLogReader reader = new BinaryLogReader(source);
+            FileChannel channel = FileChannel.open(destination.toPath(), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+            LogFileWriter writer = LogFileFormat.HTML.createWriter(channel, this)) {
+            LogRecord record;
+            while((record = reader.next()) != null)
+                writer.write(record);
+        }
+    }
+}
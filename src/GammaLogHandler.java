@@ -0,0 +1,101 @@
+/**
+ * GammaConsole (https://github.com/UnexomWid/GammaConsole)
+ *
+ * This project is licensed under the MIT license.
+ * Copyright (c) 2019 UnexomWid (https://uw.exom.dev)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the
+ * following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package me.unexomwid.gammaconsole;
+
+import java.util.logging.Formatter;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.SimpleFormatter;
+
+/**
+ * A java.util.logging handler that prints the records into a log. The logger name becomes the caller.
+ *
+ * Records are handed over without waiting: if the console falls behind, they are dropped and counted by
+ * getDroppedLogCount() of the log. Example:
+ *
+ * <pre>
+ * Logger.getLogger("").addHandler(new GammaLogHandler(console.getLog()));
+ * </pre>
+ *
+ * @author UnexomWid
+ */
+public class GammaLogHandler extends Handler {
+
+    private final GammaLog log;
+    /**
+     * Only used to fill in the parameters and localize the messages.
+     */
+    private final Formatter messageFormatter;
+
+    /**
+     * @param log The log into which to print.
+     */
+    public GammaLogHandler(GammaLog log) {
+        this.log = log;
+        this.messageFormatter = new SimpleFormatter();
+    }
+
+    @Override
+    public void publish(java.util.logging.LogRecord record) {
+        if(record == null || !isLoggable(record))
+            return;
+
+        String message = record.getParameters() == null && record.getResourceBundle() == null
+                ? String.valueOf(record.getMessage())
+                : this.messageFormatter.formatMessage(record);
+        // The exception is kept as a stack trace, which is only formatted if it is expanded.
+        LogTrace trace = null;
+        if(record.getThrown() != null) {
+            trace = this.log.capture(record.getThrown());
+            message = message + '\n' + trace.summary;
+        }
+
+        String caller = record.getLoggerName() == null ? "" : record.getLoggerName();
+        // The handler runs on the thread that logs.
+        this.log.offer(toLevel(record.getLevel()), record.getMillis(), caller, LogFormatter.escapeHtml(message), Thread.currentThread().getName(), trace);
+    }
+
+    @Override
+    public void flush() {
+
+    }
+
+    @Override
+    public void close() {
+
+    }
+
+    private static LogLevel toLevel(Level level) {
+        int value = level.intValue();
+
+        if(value >= Level.SEVERE.intValue())
+            return LogLevel.ERROR;
+        if(value >= Level.WARNING.intValue())
+            return LogLevel.WARNING;
+        if(value >= Level.INFO.intValue())
+            return LogLevel.INFO;
+        if(value >= Level.FINE.intValue())
+            return LogLevel.DEBUG;
+        return LogLevel.VERBOSE;
+    }
+}
@@ -0,0 +1,71 @@
+/**
+ * GammaConsole (https://github.com/UnexomWid/GammaConsole)
+ *
+ * This project is licensed under the MIT license.
+ * Copyright (c) 2019 UnexomWid (https://uw.exom.dev)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the
+ * following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package me.unexomwid.gammaconsole;
+
+/**
+ * The JMX view of the metrics of a log. See GammaLogMetrics for the meaning of each attribute.
+ *
+ * @author UnexomWid
+ */
+public interface GammaLogMXBean {
+
+    long getLogCount();
+
+    long getTotalLogCount();
+
+    double getLogRate();
+
+    double getVerboseRate();
+
+    double getDebugRate();
+
+    double getInfoRate();
+
+    double getWarningRate();
+
+    double getErrorRate();
+
+    int getQueueDepth();
+
+    int getRetainedLogCount();
+
+    long getRetainedLogSize();
+
+    long getDroppedLogCount();
+
+    long getRateLimitedLogCount();
+
+    long getCollapsedLogCount();
+
+    long getLatencyP50();
+
+    long getLatencyP99();
+
+    long getLatencyMax();
+
+    long getFlushTimeP50();
+
+    long getFlushTimeP99();
+
+    long getFlushTimeMax();
+}
@@ -0,0 +1,224 @@
+/**
+ * GammaConsole (https://github.com/UnexomWid/GammaConsole)
+ *
+ * This project is licensed under the MIT license.
+ * Copyright (c) 2019 UnexomWid (https://uw.exom.dev)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the
+ * following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package me.unexomwid.gammaconsole;
+
+/**
+ * A snapshot of the metrics of a log, which tell whether the console keeps up with the printed logs.
+ *
+ * Rates are measured over the last second. Latencies and flush times are measured over the last 10 to 20 seconds,
+ * with an error below 2%.
+ *
+ * @author UnexomWid
+ */
+public final class GammaLogMetrics implements GammaLogMXBean {
+
+    private final long logCount;
+    private final long totalLogCount;
+    private final double[] levelRates;
+    private final int queueDepth;
+    private final int retainedLogCount;
+    private final long retainedLogSize;
+    private final long droppedLogCount;
+    private final long rateLimitedLogCount;
+    private final long collapsedLogCount;
+    private final long[] latency;
+    private final long[] flushTime;
+
+    GammaLogMetrics(long logCount, long totalLogCount, double[] levelRates, int queueDepth, int retainedLogCount, long retainedLogSize, long droppedLogCount, long rateLimitedLogCount, long collapsedLogCount, long[] latency, long[] flushTime) {
+        this.logCount = logCount;
+        this.totalLogCount = totalLogCount;
+        this.levelRates = levelRates;
+        this.queueDepth = queueDepth;
+        this.retainedLogCount = retainedLogCount;
+        this.retainedLogSize = retainedLogSize;
+        this.droppedLogCount = droppedLogCount;
+        this.rateLimitedLogCount = rateLimitedLogCount;
+        this.collapsedLogCount = collapsedLogCount;
+        this.latency = latency;
+        this.flushTime = flushTime;
+    }
+
+    /**
+     * Gets the amount of logs moved into the log since it was last cleared.
+     */
+    @Override
+    public long getLogCount() {
+        return this.logCount;
+    }
+
+    /**
+     * Gets the amount of logs moved into the log since it was started, including the cleared ones.
+     */
+    @Override
+    public long getTotalLogCount() {
+        return this.totalLogCount;
+    }
+
+    /**
+     * Gets the amount of logs per second, of all levels.
+     */
+    @Override
+    public double getLogRate() {
+        double rate = 0;
+        for(double levelRate : this.levelRates)
+            rate += levelRate;
+        return rate;
+    }
+
+    /**
+     * Gets the amount of Verbose logs per second.
+     */
+    @Override
+    public double getVerboseRate() {
+        return this.levelRates[LogLevel.VERBOSE.ordinal()];
+    }
+
+    /**
+     * Gets the amount of Debug logs per second.
+     */
+    @Override
+    public double getDebugRate() {
+        return this.levelRates[LogLevel.DEBUG.ordinal()];
+    }
+
+    /**
+     * Gets the amount of Info logs per second.
+     */
+    @Override
+    public double getInfoRate() {
+        return this.levelRates[LogLevel.INFO.ordinal()];
+    }
+
+    /**
+     * Gets the amount of Warning logs per second.
+     */
+    @Override
+    public double getWarningRate() {
+        return this.levelRates[LogLevel.WARNING.ordinal()];
+    }
+
+    /**
+     * Gets the amount of Error logs per second.
+     */
+    @Override
+    public double getErrorRate() {
+        return this.levelRates[LogLevel.ERROR.ordinal()];
+    }
+
+    /**
+     * Gets the approximate amount of printed logs that wait to be moved into the log.
+     */
+    @Override
+    public int getQueueDepth() {
+        return this.queueDepth;
+    }
+
+    /**
+     * Gets the amount of logs kept in memory.
+     */
+    @Override
+    public int getRetainedLogCount() {
+        return this.retainedLogCount;
+    }
+
+    /**
+     * Gets the approximate size of the logs kept in memory, in bytes.
+     */
+    @Override
+    public long getRetainedLogSize() {
+        return this.retainedLogSize;
+    }
+
+    /**
+     * Gets the amount of logs that were dropped by the overload policy.
+     */
+    @Override
+    public long getDroppedLogCount() {
+        return this.droppedLogCount;
+    }
+
+    /**
+     * Gets the amount of logs that were dropped by the caller rate limit.
+     */
+    @Override
+    public long getRateLimitedLogCount() {
+        return this.rateLimitedLogCount;
+    }
+
+    /**
+     * Gets the amount of repeated messages that were collapsed.
+     */
+    @Override
+    public long getCollapsedLogCount() {
+        return this.collapsedLogCount;
+    }
+
+    /**
+     * Gets the median time from printing a log to showing it in a window, in milliseconds.
+     */
+    @Override
+    public long getLatencyP50() {
+        return this.latency[0];
+    }
+
+    /**
+     * Gets the 99th percentile of the time from printing a log to showing it in a window, in milliseconds.
+     */
+    @Override
+    public long getLatencyP99() {
+        return this.latency[1];
+    }
+
+    /**
+     * Gets the longest time from printing a log to showing it in a window, in milliseconds.
+     */
+    @Override
+    public long getLatencyMax() {
+        return this.latency[2];
+    }
+
+    /**
+     * Gets the median time spent by the window on the event dispatch thread to show new logs, in microseconds.
+     */
+    @Override
+    public long getFlushTimeP50() {
+        return this.flushTime[0];
+    }
+
+    /**
+     * Gets the 99th percentile of the time spent by the window on the event dispatch thread to show new logs, in
+     * microseconds.
+     */
+    @Override
+    public long getFlushTimeP99() {
+        return this.flushTime[1];
+    }
+
+    /**
+     * Gets the longest time spent by the window on the event dispatch thread to show new logs, in microseconds.
+     */
+    @Override
+    public long getFlushTimeMax() {
+        return this.flushTime[2];
+    }
+}
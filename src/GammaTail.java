@@ -0,0 +1,116 @@
+/**
+ * GammaConsole (https://github.com/UnexomWid/GammaConsole)
+ *
+ * This project is licensed under the MIT license.
+ * Copyright (c) 2019 UnexomWid (https://uw.exom.dev)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the
+ * following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package me.unexomwid.gammaconsole;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.Socket;
+
+/**
+ * A viewer for the logs streamed by {@link GammaLog#startServer(int, int)}. It connects to the server, prints the
+ * most recent logs, then follows the new ones.
+ *
+ * Usage: {@code java me.unexomwid.gammaconsole.GammaTail [host] port [--window]}
+ *
+ * By default, the logs are printed as plain text lines on the standard output. With {@code --window}, they are
+ * shown in a console window instead.
+ *
+ * @author UnexomWid
+ */
+public final class GammaTail {
+
+    private GammaTail() { }
+
+    public static void main(String[] args) throws IOException {
+        String host = "localhost";
+        int port = -1;
+        boolean window = false;
+
+        for(String arg : args) {
+            if(arg.equals("--window"))
+                window = true;
+            else if(port < 0 && arg.matches("\\d+"))
+                port = Integer.parseInt(arg);
+            else host = arg;
+        }
+
+        if(port < 0) {
+            System.err.println("Usage: GammaTail [host] port [--window]");
+            System.exit(2);
+        }
+
+        if(window) {
+            GammaConsole console = new GammaConsole();
+            console.setTitle("GammaConsole - " + host + ":" + port);
+            console.connect(host, port);
+            console.run();
+            return;
+        }
+
+        // The lines are flushed in batches rather than one by one, so that the viewer keeps up with the server.
+        PrintStream out = new PrintStream(new BufferedOutputStream(new FileOutputStream(FileDescriptor.out), 64 * 1024), false);
+        try {
+            tail(host, port, out);
+        }
+        catch(IOException ex) {
+            out.flush();
+            System.err.println("Disconnected from " + host + ":" + port + ": " + ex);
+            System.exit(1);
+        }
+        out.flush();
+    }
+
+    /**
+     * Prints the logs of a server as plain text lines, until the server closes the connection.
+     */
+    static void tail(String host, int port, PrintStream out) throws IOException {
+        // Only used to format the logs like the console does.
+        GammaLog log = new GammaLog();
+        StringBuilder line = new StringBuilder();
+
+        try(Socket socket = new Socket(host, port);
+            BinaryLogReader reader = new BinaryLogReader(new BufferedInputStream(socket.getInputStream()))) {
+            LogRecord record;
+            while((record = reader.next()) != null) {
+                line.setLength(0);
+                log.formatter.appendTimestamp(record.time, true, line);
+                line.append(' ').append(record.level);
+                for(int i = record.level.name().length(); i < 7; i++)
+                    line.append(' ');
+                log.formatter.appendCaller(log.callerOf(record, true), false, line);
+                LogFormatter.appendPlainText(record.message, line);
+
+                out.println(line);
+                if(record.trace != null)
+                    out.println(record.trace.text());
+                // Flushes once the logs that arrived together are printed.
+                if(!reader.hasBufferedRecords())
+                    out.flush();
+            }
+        }
+    }
+}
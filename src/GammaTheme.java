@@ -0,0 +1,135 @@
+/**
+ * GammaConsole (https://github.com/UnexomWid/GammaConsole)
+ *
+ * This project is licensed under the MIT license.
+ * Copyright (c) 2019 UnexomWid (https://uw.exom.dev)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the
+ * following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package me.unexomwid.gammaconsole;
+
+import java.awt.Color;
+
+/**
+ * The colors of a console. A theme can be set before or after the console is shown.
+ *
+ * @author UnexomWid
+ */
+public final class GammaTheme {
+
+    /**
+     * The default theme, with dark text on light backgrounds.
+     */
+    public static final GammaTheme LIGHT = new GammaTheme(
+        new Color(255, 255, 255),
+        new Color(0, 0, 0),
+        new Color(172, 172, 172),
+        new Color(225, 225, 225),
+        new Color(215, 255, 215),
+        new Color(255, 255, 215),
+        new Color(255, 215, 215));
+
+    /**
+     * A theme with light text on dark backgrounds.
+     */
+    public static final GammaTheme DARK = new GammaTheme(
+        new Color(30, 30, 30),
+        new Color(212, 212, 212),
+        new Color(70, 70, 70),
+        new Color(45, 45, 45),
+        new Color(28, 58, 35),
+        new Color(62, 58, 28),
+        new Color(74, 34, 34));
+
+    private final Color backgroundColor;
+    private final Color textColor;
+    private final Color borderColor;
+    private final Color debugColor;
+    private final Color infoColor;
+    private final Color warningColor;
+    private final Color errorColor;
+
+    /**
+     * Creates a theme. Verbose messages have the background color.
+     *
+     * @param backgroundColor The background color of the console.
+     * @param textColor The console text color.
+     * @param borderColor The color of the border between the lines.
+     * @param debugColor The color for Debug messages.
+     * @param infoColor The color for Info messages.
+     * @param warningColor The color for Warning messages.
+     * @param errorColor The color for Error messages.
+     */
+    public GammaTheme(Color backgroundColor, Color textColor, Color borderColor, Color debugColor, Color infoColor, Color warningColor, Color errorColor) {
+        this.backgroundColor = backgroundColor;
+        this.textColor = textColor;
+        this.borderColor = borderColor;
+        this.debugColor = debugColor;
+        this.infoColor = infoColor;
+        this.warningColor = warningColor;
+        this.errorColor = errorColor;
+    }
+
+    /**
+     * Gets the background color of the console.
+     */
+    public Color getBackgroundColor() {
+        return this.backgroundColor;
+    }
+
+    /**
+     * Gets the console text color.
+     */
+    public Color getTextColor() {
+        return this.textColor;
+    }
+
+    /**
+     * Gets the color of the border between the lines.
+     */
+    public Color getBorderColor() {
+        return this.borderColor;
+    }
+
+    /**
+     * Gets the color for Debug messages.
+     */
+    public Color getDebugColor() {
+        return this.debugColor;
+    }
+
+    /**
+     * Gets the color for Info messages.
+     */
+    public Color getInfoColor() {
+        return this.infoColor;
+    }
+
+    /**
+     * Gets the color for Warning messages.
+     */
+    public Color getWarningColor() {
+        return this.warningColor;
+    }
+
+    /**
+     * Gets the color for Error messages.
+     */
+    public Color getErrorColor() {
+        return this.errorColor;
+    }
+}
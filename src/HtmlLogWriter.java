@@ -0,0 +1,118 @@
+/**
+ * GammaConsole (https://github.com/UnexomWid/GammaConsole)
+ *
+ * This project is licensed under the MIT license.
+ * Copyright (c) 2019 UnexomWid (https://uw.exom.dev)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the
+ * following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package me.unexomwid.gammaconsole;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes logs as an HTML page that looks like the console.
+ *
+ * Logs are rendered into a StringBuilder, encoded as UTF-8 into a direct buffer, and written when the buffer fills up.
+ *
+ * @author UnexomWid
+ */
+final class HtmlLogWriter implements LogFileWriter {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final String FOOTER = "</body></html>";
+
+    private final WritableByteChannel channel;
+    private final GammaLog log;
+
+    private final StringBuilder html;
+    private final ByteBuffer buffer;
+    private final CharsetEncoder encoder;
+    private long written;
+
+    HtmlLogWriter(WritableByteChannel channel, GammaLog log) {
+        this.channel = channel;
+        this.log = log;
+
+        this.html = new StringBuilder(log.createHeader()).append("<body>");
+        this.buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        // Broken surrogate pairs are replaced, instead of cutting off the rest of the logs.
+        this.encoder = StandardCharsets.UTF_8.newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    }
+
+    @Override
+    public void write(LogRecord record) throws IOException {
+        String message = record.trace == null ? record.message : record.message + "<br>" + record.trace.html();
+        this.log.formatter.appendHtml(record.level, record.time, this.log.callerOf(record, true), message, this.log.fullTimestamp, this.html);
+        if(this.html.length() >= BUFFER_SIZE / 4)
+            encode();
+    }
+
+    @Override
+    public void flush() throws IOException {
+        encode();
+        drain();
+    }
+
+    @Override
+    public long size() {
+        return this.written + this.buffer.position() + this.html.length();
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.html.append(FOOTER);
+        flush();
+    }
+
+    /**
+     * Encodes the rendered logs into the buffer, writing it whenever it fills up.
+     */
+    private void encode() throws IOException {
+        if(this.html.length() == 0)
+            return;
+
+        CharBuffer chars = CharBuffer.wrap(this.html);
+        CoderResult result;
+        while((result = this.encoder.encode(chars, this.buffer, true)).isOverflow())
+            drain();
+        if(result.isError())
+            result.throwException();
+
+        while(this.encoder.flush(this.buffer).isOverflow())
+            drain();
+
+        this.encoder.reset();
+        this.html.setLength(0);
+    }
+
+    private void drain() throws IOException {
+        this.buffer.flip();
+        while(this.buffer.hasRemaining())
+            this.written += this.channel.write(this.buffer);
+        this.buffer.clear();
+    }
+}
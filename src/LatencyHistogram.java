@@ -0,0 +1,155 @@
+/**
+ * GammaConsole (https://github.com/UnexomWid/GammaConsole)
+ *
+ * This project is licensed under the MIT license.
+ * Copyright (c) 2019 UnexomWid (https://uw.exom.dev)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the
+ * following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package me.unexomwid.gammaconsole;
+
+import java.util.Arrays;
+
+/**
+ * A histogram of positive values with a bounded relative error, in the spirit of HdrHistogram.
+ *
+ * Values are grouped by their power of two, and each power of two is split into 64 linear sub-buckets, so a
+ * percentile is off by less than 1/64 of its value. Only recent values are kept: every interval, the current
+ * counts become the previous ones, and percentiles are computed over both.
+ *
+ * @author UnexomWid
+ */
+final class LatencyHistogram {
+
+    /**
+     * Values below this are counted exactly. Above it, each power of two has half as many sub-buckets.
+     */
+    private static final int LINEAR_BITS = 7;
+    private static final int LINEAR = 1 << LINEAR_BITS;
+    private static final int SUB_BUCKETS = LINEAR / 2;
+    private static final int BUCKETS = LINEAR + (64 - LINEAR_BITS) * SUB_BUCKETS;
+
+    private final long interval;
+
+    private long[] counts;
+    private long[] previousCounts;
+    private long max;
+    private long previousMax;
+    private long intervalStart;
+
+    /**
+     * @param interval How long to keep the values for, in milliseconds. Values are kept for one or two intervals.
+     */
+    LatencyHistogram(long interval) {
+        this.interval = interval;
+        this.counts = new long[BUCKETS];
+        this.previousCounts = new long[BUCKETS];
+    }
+
+    /**
+     * Records a value.
+     *
+     * @param value The value. Negative values count as 0.
+     * @param now The current time, in milliseconds since the epoch.
+     */
+    synchronized void record(long value, long now) {
+        rotate(now);
+
+        value = Math.max(0, value);
+        this.counts[bucketOf(value)]++;
+        this.max = Math.max(this.max, value);
+    }
+
+    /**
+     * Gets the value below which the specified percentage of the recent values are.
+     *
+     * @param percentile The percentage, from 0 to 100.
+     * @param now The current time, in milliseconds since the epoch.
+     *
+     * @return The value, or 0 if there are no recent values.
+     */
+    synchronized long percentile(double percentile, long now) {
+        rotate(now);
+
+        long total = 0;
+        for(int i = 0; i < BUCKETS; i++)
+            total += this.counts[i] + this.previousCounts[i];
+        if(total == 0)
+            return 0;
+
+        long rank = Math.max(1, (long) Math.ceil(total * percentile / 100));
+        long seen = 0;
+        for(int i = 0; i < BUCKETS; i++) {
+            seen += this.counts[i] + this.previousCounts[i];
+            if(seen >= rank)
+                return Math.min(highestValueOf(i), Math.max(this.max, this.previousMax));
+        }
+
+        return Math.max(this.max, this.previousMax);
+    }
+
+    /**
+     * Gets the highest recent value, or 0 if there are no recent values.
+     */
+    synchronized long max(long now) {
+        rotate(now);
+        return Math.max(this.max, this.previousMax);
+    }
+
+    private void rotate(long now) {
+        if(now - this.intervalStart < this.interval)
+            return;
+
+        long[] counts = this.previousCounts;
+        if(now - this.intervalStart < 2 * this.interval) {
+            // The current values become the previous ones.
+            this.previousCounts = this.counts;
+            this.previousMax = this.max;
+        }
+        else {
+            // Nothing was recorded for a whole interval, so every value is too old.
+            Arrays.fill(this.previousCounts, 0);
+            this.previousMax = 0;
+            Arrays.fill(this.counts, 0);
+            counts = this.counts;
+        }
+
+        Arrays.fill(counts, 0);
+        this.counts = counts;
+        this.max = 0;
+        this.intervalStart = now;
+    }
+
+    private static int bucketOf(long value) {
+        if(value < LINEAR)
+            return (int) value;
+
+        // The top bits of the value select the sub-bucket, and the dropped bits the power of two.
+        int shift = 64 - Long.numberOfLeadingZeros(value) - LINEAR_BITS;
+        int top = (int) (value >>> shift);
+        return LINEAR + (shift - 1) * SUB_BUCKETS + (top - SUB_BUCKETS);
+    }
+
+    private static long highestValueOf(int bucket) {
+        if(bucket < LINEAR)
+            return bucket;
+
+        int shift = (bucket - LINEAR) / SUB_BUCKETS + 1;
+        long top = (bucket - LINEAR) % SUB_BUCKETS + SUB_BUCKETS;
+        return ((top + 1) << shift) - 1;
+    }
+}
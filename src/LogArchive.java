@@ -0,0 +1,468 @@
+/**
+ * GammaConsole (https://github.com/UnexomWid/GammaConsole)
+ *
+ * This project is licensed under the MIT license.
+ * Copyright (c) 2019 UnexomWid (https://uw.exom.dev)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the
+ * following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package me.unexomwid.gammaconsole;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Keeps the logs evicted from the store in segment files, in a temp directory, so that the full history stays
+ * reachable without keeping it on the heap.
+ *
+ * The evicted logs are gathered into segments of {@link #SEGMENT_SIZE} logs, and each full segment is written to
+ * its own file in the binary format by a background thread, so the ingest thread does not wait for the disk while it
+ * holds the store. A segment stays on the heap until it is written, so at most {@link #MAX_UNWRITTEN_SEGMENTS} wait to
+ * be written; if the disk falls further behind, the ingest thread waits for it. A segment is only read back
+ * (memory-mapped) when a log in it is needed, and the most recently used segments stay decoded. Since the logs are
+ * evicted in order, the archive holds every log from {@link #first()} up to {@link #end()}, which is the oldest log
+ * of the store.
+ *
+ * Full segments never change, so scanning them for the filter or the search happens without blocking the
+ * ingest thread. The archive is thread-safe. The files are deleted when the archive is cleared, and when the
+ * application exits.
+ *
+ * @author UnexomWid
+ */
+final class LogArchive {
+
+    static final int SEGMENT_SIZE = 4096;
+    private static final int CACHED_SEGMENTS = 8;
+    private static final int MAX_UNWRITTEN_SEGMENTS = 4;
+
+    private File directory;
+    private final ArrayList<Segment> segments;
+    /**
+     * The logs of the segment that is not full yet, which are still on the heap.
+     */
+    private final ArrayList<LogRecord> pending;
+    /**
+     * The full segments that are not written yet, in order.
+     */
+    private final ArrayDeque<Segment> unwritten;
+    /**
+     * The thread that writes the full segments, or null if they are all written.
+     */
+    private Thread writer;
+    private long first;
+    /**
+     * Changes whenever the archive is cleared.
+     */
+    private int generation;
+    private boolean failed;
+
+    /**
+     * The most recently used segments, decoded.
+     */
+    private final LinkedHashMap<Segment, LogRecord[]> cache;
+
+    private final Object searchLock;
+    private String searchQuery;
+    private int searchGeneration;
+    private int searchedSegments;
+    private long[] searchMatches;
+    private int searchMatchCount;
+
+    LogArchive() {
+        this.segments = new ArrayList<>();
+        this.pending = new ArrayList<>();
+        this.unwritten = new ArrayDeque<>();
+        this.cache = new LinkedHashMap<Segment, LogRecord[]>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Segment, LogRecord[]> eldest) {
+                return this.size() > CACHED_SEGMENTS;
+            }
+        };
+        this.searchLock = new Object();
+        this.searchMatches = new long[16];
+    }
+
+    /**
+     * Gets the sequence number of the oldest archived log.
+     */
+    synchronized long first() {
+        return this.first;
+    }
+
+    /**
+     * Gets the sequence number after the newest archived log.
+     */
+    synchronized long end() {
+        return this.first + (long) this.segments.size() * SEGMENT_SIZE + this.pending.size();
+    }
+
+    /**
+     * Adds a log that was evicted from the store. Hands the current segment to the writer once it is full, first
+     * waiting for the writer if too many segments are not written yet. If a segment cannot be written, the archive
+     * is discarded and stops keeping logs.
+     *
+     * @param sequence The sequence number of the log, which follows the newest archived log.
+     */
+    synchronized void add(LogRecord record, long sequence) {
+        if(this.pending.size() == SEGMENT_SIZE - 1) {
+            try {
+                while(this.unwritten.size() >= MAX_UNWRITTEN_SEGMENTS && !this.failed)
+                    wait();
+            }
+            catch(InterruptedException ex) {
+                // Keep the log; the queue only grows past its limit this once.
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        if(this.failed)
+            return;
+
+        if(this.segments.isEmpty() && this.pending.isEmpty())
+            this.first = sequence;
+
+        this.pending.add(record);
+        if(this.pending.size() < SEGMENT_SIZE)
+            return;
+
+        long start = this.first + (long) this.segments.size() * SEGMENT_SIZE;
+        Segment segment = new Segment(this.pending.toArray(new LogRecord[0]), start, this.generation);
+        this.segments.add(segment);
+        this.pending.clear();
+
+        this.unwritten.add(segment);
+        if(this.writer == null) {
+            this.writer = new Thread(this::write, "GammaConsole-archive");
+            this.writer.setDaemon(true);
+            this.writer.start();
+        }
+    }
+
+    /**
+     * Gets an archived log, reading its segment back if it is not cached.
+     *
+     * @param sequence The sequence number of the log.
+     * @return The log, or null if it is not archived (anymore).
+     */
+    synchronized LogRecord get(long sequence) {
+        if(sequence < this.first || sequence >= end())
+            return null;
+
+        int index = (int) ((sequence - this.first) / SEGMENT_SIZE);
+        int offset = (int) ((sequence - this.first) % SEGMENT_SIZE);
+
+        if(index == this.segments.size())
+            return this.pending.get(offset);
+
+        Segment segment = this.segments.get(index);
+        LogRecord[] records = segment.records;
+        if(records == null)
+            records = this.cache.get(segment);
+        if(records == null) {
+            try {
+                records = segment.read(this.directory);
+            }
+            catch(IOException ex) {
+                // The segment file is gone, e.g. because the temp directory was cleaned.
+                records = new LogRecord[0];
+            }
+            this.cache.put(segment, records);
+        }
+
+        return offset < records.length ? records[offset] : null;
+    }
+
+    /**
+     * Finds the archived logs that pass a filter, skipping the segments that have no logs of the enabled levels.
+     * The full segments are scanned without holding the archive, and are read through the cache.
+     *
+     * @param filter The filter.
+     * @param from The sequence number from which to start.
+     * @param to The sequence number at which to stop.
+     * @param out Where to append the ascending sequence numbers of the logs.
+     */
+    void select(LogFilter filter, long from, long to, SequenceList out) {
+        Segment[] spilled;
+        LogRecord[] unspilled;
+        long unspilledFirst;
+
+        synchronized(this) {
+            spilled = this.segments.toArray(new Segment[0]);
+            unspilled = this.pending.toArray(new LogRecord[0]);
+            unspilledFirst = this.first + (long) spilled.length * SEGMENT_SIZE;
+        }
+
+        for(Segment segment : spilled) {
+            if(segment.first + SEGMENT_SIZE <= from || (segment.levelMask & filter.levelMask) == 0)
+                continue;
+            if(segment.first >= to)
+                return;
+
+            LogRecord[] records = records(segment);
+            for(int i = 0; i < records.length; i++) {
+                long sequence = segment.first + i;
+                if(sequence >= from && sequence < to && filter.accepts(records[i]))
+                    out.add(sequence);
+            }
+        }
+
+        for(int i = 0; i < unspilled.length; i++) {
+            long sequence = unspilledFirst + i;
+            if(sequence >= from && sequence < to && filter.accepts(unspilled[i]))
+                out.add(sequence);
+        }
+    }
+
+    /**
+     * Finds the archived logs whose message or caller contains the query (case-insensitive). The matches in the
+     * full segments are remembered, so that searching again for the same query only scans the new segments.
+     *
+     * @return The ascending sequence numbers of the matches.
+     */
+    long[] find(String query) {
+        synchronized(this.searchLock) {
+            Segment[] spilled;
+            LogRecord[] unspilled;
+            long unspilledFirst;
+            int generation;
+
+            synchronized(this) {
+                spilled = this.segments.toArray(new Segment[0]);
+                unspilled = this.pending.toArray(new LogRecord[0]);
+                unspilledFirst = this.first + (long) spilled.length * SEGMENT_SIZE;
+                generation = this.generation;
+            }
+
+            // The remembered matches are dropped when the query changes or the archive was cleared.
+            if(!query.equals(this.searchQuery) || generation != this.searchGeneration) {
+                this.searchQuery = query;
+                this.searchGeneration = generation;
+                this.searchedSegments = 0;
+                this.searchMatchCount = 0;
+            }
+
+            StringBuilder text = new StringBuilder();
+            for(; this.searchedSegments < spilled.length; this.searchedSegments++) {
+                Segment segment = spilled[this.searchedSegments];
+                LogRecord[] records = records(segment);
+                for(int i = 0; i < records.length; i++)
+                    if(GammaLog.matches(records[i].message, records[i].caller, query, text))
+                        addMatch(segment.first + i);
+            }
+
+            long[] matches = Arrays.copyOf(this.searchMatches, this.searchMatchCount + unspilled.length);
+            int count = this.searchMatchCount;
+            for(int i = 0; i < unspilled.length; i++)
+                if(GammaLog.matches(unspilled[i].message, unspilled[i].caller, query, text))
+                    matches[count++] = unspilledFirst + i;
+
+            return Arrays.copyOf(matches, count);
+        }
+    }
+
+    /**
+     * Discards the archived logs and deletes their files. The segment being written, if any, is deleted by the
+     * writer once it is written.
+     */
+    synchronized void clear() {
+        for(Segment segment : this.segments)
+            if(segment.records == null)
+                segment.file(this.directory).delete();
+
+        this.segments.clear();
+        this.pending.clear();
+        this.unwritten.clear();
+        this.cache.clear();
+        this.first = 0;
+        this.generation++;
+        notifyAll();
+    }
+
+    /**
+     * Deletes the files of the archive, along with its directory. Called when the application exits.
+     */
+    private synchronized void close() {
+        clear();
+
+        File[] files = this.directory.listFiles();
+        if(files != null)
+            for(File file : files)
+                file.delete();
+        this.directory.delete();
+    }
+
+    private void addMatch(long sequence) {
+        if(this.searchMatchCount == this.searchMatches.length)
+            this.searchMatches = Arrays.copyOf(this.searchMatches, 2 * this.searchMatchCount);
+        this.searchMatches[this.searchMatchCount++] = sequence;
+    }
+
+    /**
+     * Gets the logs of a segment from the cache, or reads them (without holding the archive) and caches them.
+     */
+    private LogRecord[] records(Segment segment) {
+        LogRecord[] unwritten = segment.records;
+        if(unwritten != null)
+            return unwritten;
+
+        File directory;
+        synchronized(this) {
+            LogRecord[] records = this.cache.get(segment);
+            if(records != null)
+                return records;
+            directory = this.directory;
+        }
+
+        LogRecord[] records;
+        try {
+            records = segment.read(directory);
+        }
+        catch(IOException ex) {
+            records = new LogRecord[0];
+        }
+
+        synchronized(this) {
+            // A segment that was cleared meanwhile must not stay in the cache.
+            if(segment.generation == this.generation)
+                this.cache.put(segment, records);
+        }
+        return records;
+    }
+
+    /**
+     * Writes the full segments to their files, in order, until they are all written. Runs on the writer thread.
+     */
+    private void write() {
+        while(true) {
+            Segment segment;
+            File directory;
+            synchronized(this) {
+                segment = this.unwritten.poll();
+                if(segment == null) {
+                    this.writer = null;
+                    return;
+                }
+                notifyAll();
+
+                try {
+                    if(this.directory == null) {
+                        this.directory = Files.createTempDirectory("gammaconsole-").toFile();
+                        Runtime.getRuntime().addShutdownHook(new Thread(this::close));
+                    }
+                }
+                catch(IOException ex) {
+                    fail(ex);
+                    return;
+                }
+                directory = this.directory;
+            }
+
+            try {
+                segment.write(directory);
+            }
+            catch(IOException ex) {
+                synchronized(this) {
+                    fail(ex);
+                    return;
+                }
+            }
+
+            synchronized(this) {
+                // The archive was cleared while the segment was written.
+                if(segment.generation != this.generation)
+                    segment.file(directory).delete();
+                else {
+                    // The newest segments are the ones that the view and the filter read next.
+                    this.cache.put(segment, segment.records);
+                    segment.records = null;
+                }
+            }
+        }
+    }
+
+    /**
+     * Discards the archive after a segment could not be written, and stops keeping logs.
+     */
+    private void fail(IOException ex) {
+        ex.printStackTrace();
+        clear();
+        this.failed = true;
+        this.writer = null;
+    }
+
+    private static final class Segment {
+
+        final long first;
+        /**
+         * The levels of the logs in the segment, as a mask of 1 << ordinal.
+         */
+        final int levelMask;
+        /**
+         * The generation of the archive that the segment belongs to.
+         */
+        final int generation;
+        /**
+         * The logs of the segment until its file is written, then null.
+         */
+        volatile LogRecord[] records;
+
+        Segment(LogRecord[] records, long first, int generation) {
+            this.records = records;
+            this.first = first;
+            this.generation = generation;
+
+            int levelMask = 0;
+            for(LogRecord record : records)
+                levelMask |= 1 << record.level.ordinal();
+            this.levelMask = levelMask;
+        }
+
+        File file(File directory) {
+            return new File(directory, "segment-" + this.first + ".gclg");
+        }
+
+        void write(File directory) throws IOException {
+            LogRecord[] records = this.records;
+            try(FileChannel channel = FileChannel.open(file(directory).toPath(), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+                BinaryLogWriter writer = new BinaryLogWriter(channel, false)) {
+                for(LogRecord record : records)
+                    writer.write(record);
+            }
+        }
+
+        LogRecord[] read(File directory) throws IOException {
+            LogRecord[] records = new LogRecord[SEGMENT_SIZE];
+            int count = 0;
+
+            try(BinaryLogReader reader = new BinaryLogReader(file(directory))) {
+                LogRecord record;
+                while(count < records.length && (record = reader.next()) != null)
+                    records[count++] = record;
+            }
+
+            return count == records.length ? records : Arrays.copyOf(records, count);
+        }
+    }
+}
@@ -0,0 +1,376 @@
+/**
+ * GammaConsole (https://github.com/UnexomWid/GammaConsole)
+ *
+ * This project is licensed under the MIT license.
+ * Copyright (c) 2019 UnexomWid (https://uw.exom.dev)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the
+ * following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package me.unexomwid.gammaconsole;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * The buffers between the printing threads and the ingest thread. Each printing thread writes into a buffer of its
+ * own, so the threads never contend on a shared queue, and a single consumer merges the buffers back into the order
+ * in which the logs were printed.
+ *
+ * Every log takes a number from a global sequence when it is printed. A thread announces the lowest number that it
+ * may take (its claim, which is right after the last number it took) before taking one, and withdraws it once the log
+ * is published. The consumer only takes the
+ * logs numbered below every claim, so a log is never passed by a later one that was published first.
+ *
+ * The buffers start small and grow as their threads print faster than they are drained, up to the capacity. The
+ * consumer reclaims the empty buffers of the threads that ended or stopped printing for a while; such a thread gets
+ * a new buffer when it prints again. So pools of short-lived or mostly idle threads do not hold on to memory.
+ *
+ * @author UnexomWid
+ */
+final class LogBuffers {
+
+    private static final long NO_CLAIM = Long.MAX_VALUE;
+    private static final int INITIAL_CAPACITY = 64;
+    /**
+     * How long a buffer stays empty before it is reclaimed, in nanoseconds.
+     */
+    private static final long IDLE_TIMEOUT = 1_000_000_000L;
+
+    /**
+     * The slots of a buffer. A buffer grows by copying its logs into larger slots.
+     */
+    private static final class Ring {
+
+        final LogRecord[] records;
+        final long[] sequences;
+        final int mask;
+
+        Ring(int capacity) {
+            this.records = new LogRecord[capacity];
+            this.sequences = new long[capacity];
+            this.mask = capacity - 1;
+        }
+    }
+
+    /**
+     * A buffer written by a single thread and read by the consumer.
+     */
+    private static final class Buffer {
+
+        final Thread thread;
+
+        /**
+         * The slots, which are replaced by the thread when it grows the buffer. The consumer reads them after the
+         * tail, so they hold every log below the tail.
+         */
+        volatile Ring ring;
+        volatile long head;
+        volatile long tail;
+        volatile long claim;
+        /**
+         * Set by the consumer when it reclaims the buffer. The thread checks it after claiming a number, and the
+         * consumer checks the claim after setting it, so a log is never written into a reclaimed buffer.
+         */
+        volatile boolean retired;
+
+        /**
+         * Only used by the thread of the buffer: the head it last read, and the last number it took.
+         */
+        long cachedHead;
+        long lastSequence;
+
+        /**
+         * Only used by the consumer: the tail it last saw, and since when the buffer has been empty.
+         */
+        long drainedTail;
+        long idleSince;
+
+        Buffer(Thread thread) {
+            this.thread = thread;
+            this.ring = new Ring(INITIAL_CAPACITY);
+            this.claim = NO_CLAIM;
+            this.lastSequence = -1;
+            this.idleSince = System.nanoTime();
+        }
+    }
+
+    private final int capacity;
+    private final AtomicLong sequence;
+    private final ThreadLocal<Buffer> buffer;
+    /**
+     * The buffers of all the threads that printed, replaced as a whole whenever a buffer is added or removed.
+     */
+    private volatile Buffer[] buffers;
+
+    private volatile Thread consumer;
+
+    /**
+     * @param capacity The amount of logs that each thread can buffer. It is rounded up to a power of 2.
+     */
+    LogBuffers(int capacity) {
+        this.capacity = Math.max(INITIAL_CAPACITY, Integer.highestOneBit(Math.max(2, capacity - 1)) << 1);
+        this.sequence = new AtomicLong();
+        this.buffer = new ThreadLocal<>();
+        this.buffers = new Buffer[0];
+    }
+
+    /**
+     * Sets the thread that drains the buffers. It is woken up early when a buffer is half full.
+     */
+    void setConsumer(Thread consumer) {
+        this.consumer = consumer;
+    }
+
+    /**
+     * Gets the amount of logs that each thread can buffer.
+     */
+    int capacity() {
+        return this.capacity;
+    }
+
+    /**
+     * Gets the approximate amount of buffered logs, of all the threads.
+     */
+    int size() {
+        int size = 0;
+        for(Buffer buffer : this.buffers)
+            size += (int) (buffer.tail - buffer.head);
+
+        return size;
+    }
+
+    /**
+     * Gets the amount of logs buffered by the current thread.
+     */
+    int ownSize() {
+        Buffer buffer = this.buffer.get();
+        return buffer == null ? 0 : (int) (buffer.tail - buffer.head);
+    }
+
+    /**
+     * Adds a log to the buffer of the current thread.
+     *
+     * @return False if the buffer is full, true otherwise.
+     */
+    boolean offer(LogRecord record) {
+        Buffer buffer = getBuffer();
+        buffer.claim = buffer.lastSequence + 1;
+        if(buffer.retired) {
+            // The consumer reclaimed the buffer while the thread was idle.
+            buffer.claim = NO_CLAIM;
+            buffer = addBuffer();
+            buffer.claim = buffer.lastSequence + 1;
+        }
+
+        Ring ring = buffer.ring;
+        long tail = buffer.tail;
+        if(tail - buffer.cachedHead == ring.records.length) {
+            buffer.cachedHead = buffer.head;
+            if(tail - buffer.cachedHead == ring.records.length) {
+                if(ring.records.length == this.capacity) {
+                    buffer.claim = NO_CLAIM;
+                    return false;
+                }
+                ring = grow(buffer, tail);
+            }
+        }
+        long size = tail - buffer.cachedHead;
+
+        buffer.lastSequence = this.sequence.getAndIncrement();
+        int index = (int) tail & ring.mask;
+        ring.records[index] = record;
+        ring.sequences[index] = buffer.lastSequence;
+        buffer.tail = tail + 1;
+        buffer.claim = NO_CLAIM;
+
+        if(size == this.capacity / 2) {
+            Thread consumer = this.consumer;
+            if(consumer != null)
+                LockSupport.unpark(consumer);
+        }
+
+        return true;
+    }
+
+    /**
+     * Removes the oldest log of the current thread. Must only be called while no other thread drains the buffers.
+     *
+     * @return False if the current thread has no buffered logs, true otherwise.
+     */
+    boolean dropOwnOldest() {
+        Buffer buffer = this.buffer.get();
+        if(buffer == null || buffer.head == buffer.tail)
+            return false;
+
+        Ring ring = buffer.ring;
+        ring.records[(int) buffer.head & ring.mask] = null;
+        buffer.head = buffer.head + 1;
+        return true;
+    }
+
+    /**
+     * Moves the buffered logs into a list, in the order in which they were printed. Must only be called by one
+     * thread at a time.
+     *
+     * @param out Where to append the logs.
+     */
+    void drain(ArrayList<LogRecord> out) {
+        // The order of these reads matters: a log numbered below the limit was either published before its buffer
+        // is read, or its thread still has a claim which lowers the limit.
+        long limit = this.sequence.get();
+        Buffer[] buffers = this.buffers;
+        for(Buffer buffer : buffers)
+            limit = Math.min(limit, buffer.claim);
+
+        long[] heads = new long[buffers.length];
+        long[] tails = new long[buffers.length];
+        Ring[] rings = new Ring[buffers.length];
+        int active = 0;
+        int last = -1;
+        for(int i = 0; i < buffers.length; i++) {
+            heads[i] = buffers[i].head;
+            tails[i] = buffers[i].tail;
+            rings[i] = buffers[i].ring;
+            if(heads[i] != tails[i]) {
+                active++;
+                last = i;
+            }
+        }
+
+        if(active == 1) {
+            // A single printing thread: its logs are already in order.
+            Ring ring = rings[last];
+            long position = heads[last];
+            while(position < tails[last] && ring.sequences[(int) position & ring.mask] < limit) {
+                out.add(ring.records[(int) position & ring.mask]);
+                ring.records[(int) position & ring.mask] = null;
+                position++;
+            }
+            buffers[last].head = position;
+        }
+        else if(active > 1) {
+            // Each buffer is in order, so the logs are merged by always taking the lowest head.
+            while(true) {
+                int next = -1;
+                long lowest = limit;
+                for(int i = 0; i < buffers.length; i++) {
+                    if(heads[i] == tails[i])
+                        continue;
+
+                    long sequence = rings[i].sequences[(int) heads[i] & rings[i].mask];
+                    if(sequence < lowest) {
+                        lowest = sequence;
+                        next = i;
+                    }
+                }
+
+                if(next < 0)
+                    break;
+
+                int index = (int) heads[next] & rings[next].mask;
+                out.add(rings[next].records[index]);
+                rings[next].records[index] = null;
+                heads[next]++;
+            }
+
+            for(int i = 0; i < buffers.length; i++)
+                buffers[i].head = heads[i];
+        }
+
+        removeIdleBuffers(buffers);
+    }
+
+    private Buffer getBuffer() {
+        Buffer buffer = this.buffer.get();
+        return buffer != null ? buffer : addBuffer();
+    }
+
+    /**
+     * Gives the current thread a new buffer.
+     */
+    private Buffer addBuffer() {
+        Buffer buffer = new Buffer(Thread.currentThread());
+        this.buffer.set(buffer);
+
+        synchronized(this) {
+            Buffer[] buffers = Arrays.copyOf(this.buffers, this.buffers.length + 1);
+            buffers[buffers.length - 1] = buffer;
+            this.buffers = buffers;
+        }
+
+        return buffer;
+    }
+
+    /**
+     * Doubles the slots of a full buffer. Called by the thread of the buffer.
+     *
+     * @return The new slots.
+     */
+    private static Ring grow(Buffer buffer, long tail) {
+        Ring ring = buffer.ring;
+        Ring grown = new Ring(2 * ring.records.length);
+
+        // The consumer may drain the buffer meanwhile, but it never writes the logs that it did not take yet.
+        for(long position = buffer.head; position < tail; position++) {
+            grown.records[(int) position & grown.mask] = ring.records[(int) position & ring.mask];
+            grown.sequences[(int) position & grown.mask] = ring.sequences[(int) position & ring.mask];
+        }
+
+        buffer.ring = grown;
+        return grown;
+    }
+
+    /**
+     * Reclaims the buffers that stayed empty for a while, or whose threads ended.
+     */
+    private void removeIdleBuffers(Buffer[] buffers) {
+        long now = System.nanoTime();
+        ArrayList<Buffer> retired = null;
+
+        for(Buffer buffer : buffers) {
+            long tail = buffer.tail;
+            if(tail != buffer.drainedTail || buffer.head != tail) {
+                buffer.drainedTail = tail;
+                buffer.idleSince = now;
+                continue;
+            }
+            if(now - buffer.idleSince < IDLE_TIMEOUT && buffer.thread.isAlive())
+                continue;
+
+            buffer.retired = true;
+            if(buffer.claim != NO_CLAIM || buffer.tail != tail) {
+                // The thread is printing into it.
+                buffer.retired = false;
+                continue;
+            }
+
+            if(retired == null)
+                retired = new ArrayList<>();
+            retired.add(buffer);
+        }
+
+        if(retired != null) {
+            synchronized(this) {
+                ArrayList<Buffer> kept = new ArrayList<>(Arrays.asList(this.buffers));
+                kept.removeAll(retired);
+                this.buffers = kept.toArray(new Buffer[0]);
+            }
+        }
+    }
+}
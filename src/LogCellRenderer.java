@@ -0,0 +1,140 @@
+/**
+ * GammaConsole (https://github.com/UnexomWid/GammaConsole)
+ *
+ * This project is licensed under the MIT license.
+ * Copyright (c) 2019 UnexomWid (https://uw.exom.dev)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the
+ * following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package me.unexomwid.gammaconsole;
+
+import javax.swing.JComponent;
+import javax.swing.JList;
+import javax.swing.ListCellRenderer;
+import java.awt.Color;
+import java.awt.Component;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+
+/**
+ * Paints a single row of the virtualized view. Rows look like the HTML view: the background depends on the level,
+ * and the timestamp, caller and message are separated by the text spacing of the console.
+ *
+ * @author UnexomWid
+ */
+final class LogCellRenderer extends JComponent implements ListCellRenderer<LogRecord> {
+
+    /**
+     * The vertical padding of each row, like the padding of the HTML view.
+     */
+    static final int PADDING = 5;
+
+    private final GammaConsole console;
+    private final StringBuilder line;
+    private char[] chars;
+
+    private LogRecord record;
+    private boolean selected;
+    private Color selectionColor;
+
+    LogCellRenderer(GammaConsole console) {
+        this.console = console;
+        this.line = new StringBuilder();
+        this.chars = new char[256];
+        this.setOpaque(true);
+    }
+
+    /**
+     * Gets the height of a row for the specified font metrics.
+     */
+    static int getRowHeight(FontMetrics metrics) {
+        return 1 + PADDING + metrics.getHeight() + PADDING;
+    }
+
+    @Override
+    public Component getListCellRendererComponent(JList<? extends LogRecord> list, LogRecord record, int index, boolean selected, boolean focused) {
+        this.record = record;
+        this.selected = selected;
+        this.selectionColor = list.getSelectionBackground();
+        this.setFont(list.getFont());
+
+        return this;
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        int width = this.getWidth();
+        int height = this.getHeight();
+
+        g.setColor(this.record == null ? this.console.getBackgroundColor() : getLevelColor(this.record.level));
+        g.fillRect(0, 0, width, height);
+
+        if(this.selected) {
+            g.setColor(this.selectionColor);
+            g.fillRect(0, 0, width, height);
+        }
+
+        g.setColor(this.console.getBorderColor());
+        g.drawLine(0, 0, width, 0);
+
+        if(this.record == null)
+            return;
+
+        g.setFont(this.getFont());
+        FontMetrics metrics = g.getFontMetrics();
+        formatLine(this.record);
+
+        String query = this.console.getSearchQuery();
+        if(query != null && !query.isEmpty()) {
+            g.setColor(GammaConsole.SEARCH_COLOR);
+            for(int i = GammaConsole.indexOfIgnoreCase(this.line, query, 0); i >= 0; i = GammaConsole.indexOfIgnoreCase(this.line, query, i + query.length()))
+                g.fillRect(PADDING + metrics.charsWidth(this.chars, 0, i), 1 + PADDING, metrics.charsWidth(this.chars, i, query.length()), metrics.getHeight());
+        }
+
+        g.setColor(this.console.getTextColor());
+        g.drawChars(this.chars, 0, this.line.length(), PADDING, 1 + PADDING + metrics.getAscent());
+    }
+
+    private Color getLevelColor(LogLevel level) {
+        switch(level) {
+            case DEBUG:
+                return this.console.getDebugColor();
+            case INFO:
+                return this.console.getInfoColor();
+            case WARNING:
+                return this.console.getWarningColor();
+            case ERROR:
+                return this.console.getErrorColor();
+            default:
+                return this.console.getBackgroundColor();
+        }
+    }
+
+    /**
+     * Formats the row into the reusable char buffer.
+     */
+    private void formatLine(LogRecord record) {
+        this.line.setLength(0);
+        this.console.formatter.appendTimestamp(record.time, this.console.fullTimestamp, this.line);
+        this.console.formatter.appendCaller(this.console.callerOf(record), false, this.line);
+        LogFormatter.appendPlainText(record.message, this.line);
+
+        if(this.chars.length < this.line.length())
+            this.chars = new char[Math.max(this.line.length(), 2 * this.chars.length)];
+        this.line.getChars(0, this.line.length(), this.chars, 0);
+    }
+}
@@ -0,0 +1,260 @@
+/**
+ * GammaConsole (https://github.com/UnexomWid/GammaConsole)
+ *
+ * This project is licensed under the MIT license.
+ * Copyright (c) 2019 UnexomWid (https://uw.exom.dev)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the
+ * following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package me.unexomwid.gammaconsole;
+
+import javax.swing.text.AttributeSet;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Element;
+import javax.swing.text.SimpleAttributeSet;
+import javax.swing.text.StyleConstants;
+import javax.swing.text.html.HTML;
+import javax.swing.text.html.HTMLDocument;
+import javax.swing.text.html.StyleSheet;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * The document of the console. Rows are appended as element specs, which is what the HTML parser produces, so that
+ * plain text messages never go through the parser.
+ *
+ * Each row is a div with the class of its level. A plain text row holds an implied paragraph with its text, followed
+ * by the newline that ends the paragraph, like a parsed row does. A row with an HTML message holds the specs of the
+ * parsed message instead, which are parsed once and then reused.
+ *
+ * @author UnexomWid
+ */
+final class LogDocument extends HTMLDocument {
+
+    private static final AttributeSet[] ROW_ATTRIBUTES;
+    private static final AttributeSet PARAGRAPH_ATTRIBUTES;
+    private static final AttributeSet CONTENT_ATTRIBUTES;
+    /**
+     * The attributes of the newline that ends a paragraph. "CR" is the attribute HTMLDocument uses to tell it apart.
+     */
+    private static final AttributeSet NEWLINE_ATTRIBUTES;
+    private static final char[] NEWLINE = { '\n' };
+    private static final char MARKER = 'x';
+
+    static {
+        ROW_ATTRIBUTES = new AttributeSet[LogLevel.values().length];
+        for(int i = 0; i < ROW_ATTRIBUTES.length; i++) {
+            SimpleAttributeSet row = new SimpleAttributeSet();
+            row.addAttribute(StyleConstants.NameAttribute, HTML.Tag.DIV);
+            row.addAttribute(HTML.Attribute.CLASS, LogLevel.of(i).cssClass);
+            ROW_ATTRIBUTES[i] = row;
+        }
+
+        SimpleAttributeSet paragraph = new SimpleAttributeSet();
+        paragraph.addAttribute(StyleConstants.NameAttribute, HTML.Tag.IMPLIED);
+        PARAGRAPH_ATTRIBUTES = paragraph;
+
+        SimpleAttributeSet content = new SimpleAttributeSet();
+        content.addAttribute(StyleConstants.NameAttribute, HTML.Tag.CONTENT);
+        CONTENT_ATTRIBUTES = content;
+
+        SimpleAttributeSet newline = new SimpleAttributeSet(content);
+        newline.addAttribute("CR", Boolean.TRUE);
+        NEWLINE_ATTRIBUTES = newline;
+    }
+
+    /**
+     * While parsing a message, the specs produced by the parser are collected here instead of being inserted.
+     */
+    private ArrayList<ElementSpec> parsed;
+
+    LogDocument(StyleSheet styles) {
+        super(styles);
+    }
+
+    @Override
+    protected void insert(int offset, ElementSpec[] data) throws BadLocationException {
+        if(this.parsed != null) {
+            for(ElementSpec spec : data)
+                this.parsed.add(spec);
+            return;
+        }
+
+        super.insert(offset, data);
+    }
+
+    /**
+     * Appends the specs of a plain text row.
+     *
+     * @param level The level of the log.
+     * @param text The text of the row.
+     * @param specs Where to append the specs.
+     */
+    static void appendRow(LogLevel level, char[] text, ArrayList<ElementSpec> specs) {
+        specs.add(new ElementSpec(ROW_ATTRIBUTES[level.ordinal()], ElementSpec.StartTagType));
+        specs.add(new ElementSpec(PARAGRAPH_ATTRIBUTES, ElementSpec.StartTagType));
+        specs.add(new ElementSpec(CONTENT_ATTRIBUTES, ElementSpec.ContentType, text, 0, text.length));
+        specs.add(new ElementSpec(NEWLINE_ATTRIBUTES, ElementSpec.ContentType, NEWLINE, 0, 1));
+        specs.add(new ElementSpec(null, ElementSpec.EndTagType));
+        specs.add(new ElementSpec(null, ElementSpec.EndTagType));
+    }
+
+    /**
+     * Appends the specs of a row with a parsed message.
+     *
+     * @param level The level of the log.
+     * @param text The beginning of the row, before the message.
+     * @param message The parsed message.
+     * @param specs Where to append the specs.
+     */
+    static void appendRow(LogLevel level, char[] text, ElementSpec[] message, ArrayList<ElementSpec> specs) {
+        specs.add(new ElementSpec(ROW_ATTRIBUTES[level.ordinal()], ElementSpec.StartTagType));
+        // The message starts with the paragraph that the text goes in.
+        specs.add(copy(message[0]));
+
+        int next = 1;
+        ElementSpec first = message[1];
+        if(first.getType() == ElementSpec.ContentType && first.getAttributes().isEqual(CONTENT_ATTRIBUTES)) {
+            // Like the parser, the text is joined with the unstyled text at the beginning of the message.
+            char[] joined = Arrays.copyOf(text, text.length + first.getLength());
+            System.arraycopy(first.getArray(), first.getOffset(), joined, text.length, first.getLength());
+            text = joined;
+            next++;
+        }
+
+        specs.add(new ElementSpec(CONTENT_ATTRIBUTES, ElementSpec.ContentType, text, 0, text.length));
+        for(int i = next; i < message.length; i++)
+            specs.add(copy(message[i]));
+        specs.add(new ElementSpec(null, ElementSpec.EndTagType));
+    }
+
+    /**
+     * Copies a spec, since inserting it may change its direction.
+     */
+    private static ElementSpec copy(ElementSpec spec) {
+        if(spec.getType() == ElementSpec.ContentType)
+            return new ElementSpec(spec.getAttributes(), ElementSpec.ContentType, spec.getArray(), spec.getOffset(), spec.getLength());
+
+        return new ElementSpec(spec.getAttributes(), spec.getType());
+    }
+
+    /**
+     * Appends rows at the end of the body.
+     *
+     * @param body The body of the document.
+     * @param empty Whether the body only holds the empty paragraph (or row) of an empty document, which is replaced.
+     * @param rows The specs of the rows.
+     */
+    void appendRows(Element body, boolean empty, ArrayList<ElementSpec> rows) throws BadLocationException {
+        Element first = body.getElement(0);
+
+        // Leaves the elements that end the body, like the parser does, then closes the rows at the end.
+        int depth = 0;
+        for(Element element = getCharacterElement(body.getEndOffset() - 1).getParentElement(); element != body; element = element.getParentElement())
+            depth++;
+
+        ElementSpec[] specs = new ElementSpec[depth + rows.size() + 2];
+        int count = 0;
+        while(count < depth)
+            specs[count++] = new ElementSpec(null, ElementSpec.EndTagType);
+        for(int i = 0; i < rows.size(); i++)
+            specs[count++] = rows.get(i);
+        specs[count++] = new ElementSpec(null, ElementSpec.EndTagType);
+        specs[count] = new ElementSpec(null, ElementSpec.EndTagType);
+
+        insert(body.getEndOffset(), specs);
+        if(empty)
+            removeElement(first);
+    }
+
+    /**
+     * Parses an HTML message into the specs of the inside of a row, without changing the document. They start with
+     * the paragraph in which the beginning of the row goes. A message that cannot be parsed into a single row becomes
+     * its plain text.
+     *
+     * @param body The body of the document.
+     * @param html The message.
+     */
+    ElementSpec[] parseMessage(Element body, String html) {
+        ArrayList<ElementSpec> parsed = new ArrayList<>();
+        this.parsed = parsed;
+        try {
+            // The marker makes sure that the message starts in a paragraph, where the beginning of the row goes.
+            insertBeforeEnd(body, "<div>" + MARKER + html + "</div>");
+        }
+        catch(BadLocationException | IOException ex) {
+            parsed.clear();
+        }
+        finally {
+            this.parsed = null;
+        }
+
+        // Finds the div, and the spec that closes it. Only the specs that leave the parent may follow.
+        int start = 0;
+        while(start < parsed.size() && parsed.get(start).getType() == ElementSpec.EndTagType)
+            start++;
+
+        int end = start + 1;
+        for(int depth = 1; depth > 0 && end < parsed.size(); end++) {
+            if(parsed.get(end).getType() == ElementSpec.StartTagType)
+                depth++;
+            else if(parsed.get(end).getType() == ElementSpec.EndTagType)
+                depth--;
+        }
+
+        boolean valid = end - start > 3
+            && isStartTag(parsed.get(start), HTML.Tag.DIV)
+            && isStartTag(parsed.get(start + 1), HTML.Tag.IMPLIED)
+            && parsed.get(start + 2).getType() == ElementSpec.ContentType
+            && parsed.get(start + 2).getArray()[parsed.get(start + 2).getOffset()] == MARKER;
+        for(int i = end; valid && i < parsed.size(); i++)
+            valid = parsed.get(i).getType() == ElementSpec.EndTagType;
+
+        if(valid) {
+            ElementSpec[] message = parsed.subList(start + 1, end - 1).toArray(new ElementSpec[0]);
+            ElementSpec first = message[1];
+            if(first.getLength() == 1)
+                message = remove(message, 1);
+            else message[1] = new ElementSpec(first.getAttributes(), ElementSpec.ContentType, first.getArray(), first.getOffset() + 1, first.getLength() - 1);
+
+            return message;
+        }
+
+        StringBuilder text = new StringBuilder();
+        LogFormatter.appendPlainText(html, text);
+        char[] chars = new char[text.length()];
+        text.getChars(0, chars.length, chars, 0);
+        return new ElementSpec[] {
+            new ElementSpec(PARAGRAPH_ATTRIBUTES, ElementSpec.StartTagType),
+            new ElementSpec(CONTENT_ATTRIBUTES, ElementSpec.ContentType, chars, 0, chars.length),
+            new ElementSpec(NEWLINE_ATTRIBUTES, ElementSpec.ContentType, NEWLINE, 0, 1),
+            new ElementSpec(null, ElementSpec.EndTagType)
+        };
+    }
+
+    private static ElementSpec[] remove(ElementSpec[] specs, int index) {
+        ElementSpec[] removed = new ElementSpec[specs.length - 1];
+        System.arraycopy(specs, 0, removed, 0, index);
+        System.arraycopy(specs, index + 1, removed, index, removed.length - index);
+        return removed;
+    }
+
+    private static boolean isStartTag(ElementSpec spec, HTML.Tag tag) {
+        return spec.getType() == ElementSpec.StartTagType && spec.getAttributes() != null && spec.getAttributes().getAttribute(StyleConstants.NameAttribute) == tag;
+    }
+}
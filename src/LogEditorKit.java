@@ -0,0 +1,148 @@
+/**
+ * GammaConsole (https://github.com/UnexomWid/GammaConsole)
+ *
+ * This project is licensed under the MIT license.
+ * Copyright (c) 2019 UnexomWid (https://uw.exom.dev)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the
+ * following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package me.unexomwid.gammaconsole;
+
+import javax.swing.text.Document;
+import javax.swing.text.Element;
+import javax.swing.text.StyleConstants;
+import javax.swing.text.View;
+import javax.swing.text.ViewFactory;
+import javax.swing.text.html.BlockView;
+import javax.swing.text.html.HTML;
+import javax.swing.text.html.HTMLDocument;
+import javax.swing.text.html.HTMLEditorKit;
+import javax.swing.text.html.InlineView;
+import javax.swing.text.html.StyleSheet;
+import java.awt.Graphics;
+import java.awt.Shape;
+
+/**
+ * The HTML editor kit of the console. It can restyle the whole document by changing the rules of its style sheet.
+ *
+ * The views of the rows cache their colors, so they compare the version they were styled with against the version
+ * of the kit, and take their colors from the style sheet again when they are next painted. Only the visible rows
+ * are restyled, and since the geometry of the rules does not change, nothing is laid out again.
+ *
+ * A single kit is shared by every view of the console, so a restyle reaches the rows of all the views.
+ *
+ * @author UnexomWid
+ */
+final class LogEditorKit extends HTMLEditorKit {
+
+    private final ViewFactory factory;
+    /**
+     * Incremented by every restyle. Only used on the EDT.
+     */
+    private int styleVersion;
+
+    LogEditorKit() {
+        this.factory = new LogViewFactory();
+    }
+
+    @Override
+    public ViewFactory getViewFactory() {
+        return this.factory;
+    }
+
+    @Override
+    public Document createDefaultDocument() {
+        StyleSheet styles = new StyleSheet();
+        styles.addStyleSheet(getStyleSheet());
+
+        LogDocument document = new LogDocument(styles);
+        document.setParser(getParser());
+        return document;
+    }
+
+    /**
+     * Adds the rules to the style sheet of a document, replacing the properties of the rules with the same selectors,
+     * and restyles its views.
+     *
+     * @param document The document to restyle.
+     * @param rules The CSS rules.
+     */
+    void restyle(HTMLDocument document, String rules) {
+        document.getStyleSheet().addRule(rules);
+        this.styleVersion++;
+    }
+
+    private final class LogViewFactory extends HTMLFactory {
+
+        @Override
+        public View create(Element element) {
+            Object tag = element.getAttributes().getAttribute(StyleConstants.NameAttribute);
+            if(tag == HTML.Tag.DIV)
+                return new LogBlockView(element);
+            if(tag == HTML.Tag.CONTENT)
+                return new LogInlineView(element);
+
+            return super.create(element);
+        }
+    }
+
+    /**
+     * A row. It paints the background and the border.
+     */
+    private final class LogBlockView extends BlockView {
+
+        private int version;
+
+        LogBlockView(Element element) {
+            super(element, View.Y_AXIS);
+            this.version = styleVersion;
+        }
+
+        @Override
+        public void paint(Graphics g, Shape allocation) {
+            if(this.version != styleVersion) {
+                this.version = styleVersion;
+                setPropertiesFromAttributes();
+            }
+
+            super.paint(g, allocation);
+        }
+    }
+
+    /**
+     * The text of a row. It paints the text color.
+     */
+    private final class LogInlineView extends InlineView {
+
+        private int version;
+
+        LogInlineView(Element element) {
+            super(element);
+            this.version = styleVersion;
+        }
+
+        @Override
+        public void paint(Graphics g, Shape allocation) {
+            if(this.version != styleVersion) {
+                this.version = styleVersion;
+                setPropertiesFromAttributes();
+            }
+
+            super.paint(g, allocation);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+/**
+ * GammaConsole (https://github.com/UnexomWid/GammaConsole)
+ *
+ * This project is licensed under the MIT license.
+ * Copyright (c) 2019 UnexomWid (https://uw.exom.dev)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the
+ * following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package me.unexomwid.gammaconsole;
+
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * The format in which the console saves its logs.
+ *
+ * @author UnexomWid
+ */
+public enum LogFileFormat {
+
+    /**
+     * An HTML page that looks like the console.
+     */
+    HTML(".html") {
+        @Override
+        LogFileWriter createWriter(WritableByteChannel channel, GammaLog log) {
+            return new HtmlLogWriter(channel, log);
+        }
+    },
+    /**
+     * A compact binary format, which can be loaded back into a console.
+     */
+    BINARY(".gclog") {
+        @Override
+        LogFileWriter createWriter(WritableByteChannel channel, GammaLog log) {
+            return new BinaryLogWriter(channel, false);
+        }
+    },
+    /**
+     * The binary format, with each block of logs compressed (Deflate).
+     */
+    BINARY_COMPRESSED(".gclog") {
+        @Override
+        LogFileWriter createWriter(WritableByteChannel channel, GammaLog log) {
+            return new BinaryLogWriter(channel, true);
+        }
+    };
+
+    /**
+     * The extension of the files saved in this format, including the dot.
+     */
+    final String extension;
+
+    LogFileFormat(String extension) {
+        this.extension = extension;
+    }
+
+    /**
+     * Creates a writer which saves logs in this format.
+     *
+     * @param channel The channel to write to.
+     * @param log The log whose logs are saved.
+     */
+    abstract LogFileWriter createWriter(WritableByteChannel channel, GammaLog log);
+}
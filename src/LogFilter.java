@@ -0,0 +1,144 @@
+/**
+ * GammaConsole (https://github.com/UnexomWid/GammaConsole)
+ *
+ * This project is licensed under the MIT license.
+ * Copyright (c) 2019 UnexomWid (https://uw.exom.dev)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the
+ * following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package me.unexomwid.gammaconsole;
+
+import java.util.Arrays;
+
+/**
+ * Decides which logs are shown: only the logs whose level is enabled, whose caller contains the caller text
+ * (case-insensitive), and which were printed on the channel of the view, if it has one.
+ *
+ * Whether a caller or channel matches is only checked once per symbol, since they are interned by the store. The
+ * checks are forgotten when the store clears or compacts its symbols.
+ *
+ * @author UnexomWid
+ */
+final class LogFilter {
+
+    static final int ALL_LEVELS = (1 << LogLevel.values().length) - 1;
+
+    final int levelMask;
+    final String caller;
+    /**
+     * The name of the channel whose logs are shown, or null to show the logs of every channel.
+     */
+    final String channel;
+
+    private boolean[] callerMatches;
+    private boolean[] channelMatches;
+    private int checkedSymbols;
+    private int generation;
+
+    /**
+     * @param levelMask The enabled levels, as a mask of 1 << ordinal.
+     * @param caller The text that the callers must contain, or an empty string to allow any caller.
+     * @param channel The name of the channel whose logs are shown, or null to allow any channel.
+     */
+    LogFilter(int levelMask, String caller, String channel) {
+        this.levelMask = levelMask;
+        this.caller = caller;
+        this.channel = channel;
+        this.callerMatches = new boolean[16];
+        this.channelMatches = new boolean[16];
+    }
+
+    /**
+     * Gets whether the filter lets every log through.
+     */
+    boolean acceptsAll() {
+        return this.levelMask == ALL_LEVELS && this.caller.isEmpty() && this.channel == null;
+    }
+
+    boolean acceptsLevel(int level) {
+        return (this.levelMask & (1 << level)) != 0;
+    }
+
+    /**
+     * Gets whether a log passes the filter, without the symbols of the store (for the archived logs).
+     */
+    boolean accepts(LogRecord record) {
+        return acceptsLevel(record.level.ordinal())
+            && (this.caller.isEmpty() || GammaConsole.indexOfIgnoreCase(record.caller, this.caller, 0) >= 0)
+            && (this.channel == null || this.channel.equals(record.channel));
+    }
+
+    /**
+     * Gets whether a caller matches the filter. Must be called while holding the store lock.
+     *
+     * @param symbol The symbol index of the caller, in the store.
+     */
+    boolean acceptsCaller(int symbol, LogStore store) {
+        if(this.caller.isEmpty())
+            return true;
+
+        check(symbol, store);
+        return this.callerMatches[symbol];
+    }
+
+    /**
+     * Gets whether a channel matches the filter. Must be called while holding the store lock.
+     *
+     * @param symbol The symbol index of the channel, in the store, or -1 for the logs printed on the log itself.
+     */
+    boolean acceptsChannel(int symbol, LogStore store) {
+        if(this.channel == null)
+            return true;
+        if(symbol < 0)
+            return false;
+
+        check(symbol, store);
+        return this.channelMatches[symbol];
+    }
+
+    /**
+     * Checks the symbols of the store up to the specified one, if they were not checked yet.
+     */
+    private void check(int symbol, LogStore store) {
+        if(store.generation() != this.generation) {
+            this.checkedSymbols = 0;
+            this.generation = store.generation();
+
+            // The table may have been compacted.
+            int length = Math.max(16, store.symbolCount());
+            if(this.callerMatches.length > 2 * length) {
+                this.callerMatches = new boolean[length];
+                this.channelMatches = new boolean[length];
+            }
+        }
+
+        if(symbol >= this.checkedSymbols) {
+            if(symbol >= this.callerMatches.length) {
+                int length = Math.max(symbol + 1, 2 * this.callerMatches.length);
+                this.callerMatches = Arrays.copyOf(this.callerMatches, length);
+                this.channelMatches = Arrays.copyOf(this.channelMatches, length);
+            }
+
+            for(int i = this.checkedSymbols; i <= symbol; i++) {
+                String name = store.symbol(i);
+                this.callerMatches[i] = GammaConsole.indexOfIgnoreCase(name, this.caller, 0) >= 0;
+                this.channelMatches[i] = name.equals(this.channel);
+            }
+            this.checkedSymbols = symbol + 1;
+        }
+    }
+}
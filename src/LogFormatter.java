@@ -0,0 +1,333 @@
+/**
+ * GammaConsole (https://github.com/UnexomWid/GammaConsole)
+ *
+ * This project is licensed under the MIT license.
+ * Copyright (c) 2019 UnexomWid (https://uw.exom.dev)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the
+ * following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package me.unexomwid.gammaconsole;
+
+import java.awt.Color;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.TimeZone;
+
+/**
+ * Formats the timestamp and the padded caller of a log without allocating.
+ *
+ * The date and time are only computed again when the second changes, and are written straight into a reusable
+ * char buffer. The padding around the caller comes from precomputed runs, indexed by length.
+ *
+ * @author UnexomWid
+ */
+final class LogFormatter {
+
+    private static final String HTML_SPACE = "&nbsp;";
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+    /**
+     * The tags that would change the document around the rows, rather than the row they are in.
+     */
+    private static final HashSet<String> DOCUMENT_TAGS = new HashSet<>(Arrays.asList(
+        "applet", "base", "body", "frame", "frameset", "head", "html", "iframe", "link", "meta", "object", "script",
+        "style", "title"));
+    /**
+     * The tags that are never closed.
+     */
+    private static final HashSet<String> VOID_TAGS = new HashSet<>(Arrays.asList(
+        "area", "br", "col", "hr", "img", "input", "param", "wbr"));
+
+    private final TimeZone timeZone;
+    /**
+     * The cached "yyyy-mm-dd hh:mm:ss" prefix of the current second, followed by room for the milliseconds.
+     */
+    private final char[] timestamp;
+    private long second;
+
+    private String[] htmlPadding;
+    private String[] plainPadding;
+
+    LogFormatter() {
+        this.timeZone = TimeZone.getDefault();
+        this.timestamp = new char[23];
+        this.second = Long.MIN_VALUE;
+        setHalfTextSpacing(0);
+    }
+
+    /**
+     * Precomputes the padding runs for the specified half of the text spacing.
+     */
+    void setHalfTextSpacing(int halfTextSpacing) {
+        String[] htmlPadding = new String[Math.max(0, halfTextSpacing) + 2];
+        String[] plainPadding = new String[htmlPadding.length];
+
+        StringBuilder html = new StringBuilder();
+        StringBuilder plain = new StringBuilder();
+        for(int i = 0; i < htmlPadding.length; i++) {
+            htmlPadding[i] = html.toString();
+            plainPadding[i] = plain.toString();
+            html.append(HTML_SPACE);
+            plain.append(' ');
+        }
+
+        this.htmlPadding = htmlPadding;
+        this.plainPadding = plainPadding;
+    }
+
+    /**
+     * Appends the timestamp of a log.
+     *
+     * @param time The time of the log, in milliseconds since the epoch.
+     * @param full Whether to append the full timestamp (like java.sql.Timestamp), or just the hour, minute and second.
+     * @param out Where to append the timestamp.
+     */
+    synchronized void appendTimestamp(long time, boolean full, StringBuilder out) {
+        long second = Math.floorDiv(time, 1000);
+        if(second != this.second) {
+            formatSecond(time);
+            this.second = second;
+        }
+
+        if(!full) {
+            out.append(this.timestamp, 11, 8);
+            return;
+        }
+
+        // Like java.sql.Timestamp, the fraction has no trailing zeros, but at least one digit.
+        int millis = (int) Math.floorMod(time, 1000L);
+        int length = 3;
+        if(millis == 0)
+            length = 1;
+        else if(millis % 100 == 0)
+            length = 1;
+        else if(millis % 10 == 0)
+            length = 2;
+
+        this.timestamp[19] = '.';
+        this.timestamp[20] = (char) ('0' + millis / 100);
+        this.timestamp[21] = (char) ('0' + millis / 10 % 10);
+        this.timestamp[22] = (char) ('0' + millis % 10);
+        out.append(this.timestamp, 0, 20 + length);
+    }
+
+    /**
+     * Appends the caller of a log, centered in the text spacing.
+     *
+     * @param caller The caller of the log.
+     * @param html Whether to pad with HTML spaces, or plain ones.
+     * @param out Where to append the caller.
+     */
+    void appendCaller(String caller, boolean html, StringBuilder out) {
+        String[] padding = html ? this.htmlPadding : this.plainPadding;
+        // The runs go up to half of the text spacing, plus one for callers of even length.
+        int count = Math.max(0, padding.length - 2 - caller.length() / 2);
+
+        out.append(padding[count]);
+        out.append(caller);
+        out.append(padding[caller.length() % 2 == 0 ? count + 1 : count]);
+    }
+
+    /**
+     * Appends a log as an HTML row.
+     *
+     * @param full Whether to append the full timestamp, or just the hour, minute and second.
+     * @param out Where to append the row.
+     */
+    void appendHtml(LogLevel level, long time, String caller, String message, boolean full, StringBuilder out) {
+        out.append("<div class=\"").append(level.cssClass).append("\">");
+        appendTimestamp(time, full, out);
+        appendCaller(caller, true, out);
+        out.append(message);
+        out.append("</div>");
+    }
+
+    /**
+     * Appends the text of an HTML message, without its tags.
+     */
+    static void appendPlainText(String html, StringBuilder text) {
+        if(html.indexOf('<') < 0 && html.indexOf('&') < 0) {
+            text.append(html);
+            return;
+        }
+
+        boolean inTag = false;
+        for(int i = 0; i < html.length(); i++) {
+            char c = html.charAt(i);
+
+            if(inTag) {
+                if(c == '>')
+                    inTag = false;
+            }
+            else if(c == '<') {
+                inTag = true;
+                // Line breaks become spaces, since every log is a single row.
+                if(html.regionMatches(true, i + 1, "br", 0, 2))
+                    text.append(' ');
+            }
+            else if(c == '&') {
+                int end = html.indexOf(';', i);
+                String entity = end < 0 ? "" : html.substring(i + 1, end);
+
+                switch(entity) {
+                    case "nbsp": text.append(' '); break;
+                    case "lt": text.append('<'); break;
+                    case "gt": text.append('>'); break;
+                    case "amp": text.append('&'); break;
+                    case "quot": text.append('"'); break;
+                    default: text.append(c); continue;
+                }
+                i = end;
+            }
+            else text.append(c);
+        }
+    }
+
+    /**
+     * Formats a color as a CSS hex color, like #rrggbb. The alpha is ignored.
+     */
+    static String toCss(Color color) {
+        int rgb = color.getRGB();
+        char[] css = new char[7];
+        css[0] = '#';
+        for(int i = 6; i > 0; i--, rgb >>>= 4)
+            css[i] = HEX_DIGITS[rgb & 0xf];
+
+        return new String(css);
+    }
+
+    /**
+     * Checks whether an HTML message is well-formed: every tag is closed, in order, and no tag belongs to the
+     * document itself. Anything else, like a tag that is never closed, could break the layout of the rows that follow.
+     */
+    static boolean isWellFormedHtml(String html) {
+        ArrayDeque<String> open = new ArrayDeque<>();
+
+        int start = html.indexOf('<');
+        while(start >= 0) {
+            int end = html.indexOf('>', start);
+            if(end < 0)
+                return false;
+
+            boolean closing = start + 1 < end && html.charAt(start + 1) == '/';
+            int nameStart = closing ? start + 2 : start + 1;
+            int nameEnd = nameStart;
+            while(nameEnd < end && Character.isLetterOrDigit(html.charAt(nameEnd)))
+                nameEnd++;
+
+            String name = html.substring(nameStart, nameEnd).toLowerCase(Locale.ROOT);
+            if(name.isEmpty() || DOCUMENT_TAGS.contains(name) || (nameEnd < end && !Character.isWhitespace(html.charAt(nameEnd)) && html.charAt(nameEnd) != '/'))
+                return false;
+
+            // The attributes can neither open another tag, nor leave a quote open.
+            char quote = 0;
+            for(int i = nameEnd; i < end; i++) {
+                char c = html.charAt(i);
+                if(quote != 0) {
+                    if(c == quote)
+                        quote = 0;
+                }
+                else if(c == '"' || c == '\'')
+                    quote = c;
+                else if(c == '<')
+                    return false;
+            }
+            if(quote != 0)
+                return false;
+
+            if(closing) {
+                if(!name.equals(open.poll()))
+                    return false;
+            }
+            else if(!VOID_TAGS.contains(name) && html.charAt(end - 1) != '/')
+                open.push(name);
+
+            start = html.indexOf('<', end);
+        }
+
+        return open.isEmpty();
+    }
+
+    /**
+     * Escapes plain text so that it is shown as is in the HTML view. Line breaks become br tags. The text itself is
+     * returned when there is nothing to escape, which is the common case.
+     */
+    static String escapeHtml(String text) {
+        int i = 0;
+        while(i < text.length() && !needsEscaping(text.charAt(i)))
+            i++;
+        if(i == text.length())
+            return text;
+
+        StringBuilder html = new StringBuilder(text.length() + 16).append(text, 0, i);
+        for(; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch(c) {
+                case '<': html.append("&lt;"); break;
+                case '>': html.append("&gt;"); break;
+                case '&': html.append("&amp;"); break;
+                case '"': html.append("&quot;"); break;
+                case '\n': html.append("<br>"); break;
+                case '\r': break;
+                default: html.append(c);
+            }
+        }
+
+        return html.toString();
+    }
+
+    private static boolean needsEscaping(char c) {
+        return c == '<' || c == '>' || c == '&' || c == '"' || c == '\n' || c == '\r';
+    }
+
+    private void formatSecond(long time) {
+        long local = time + this.timeZone.getOffset(time);
+        long days = Math.floorDiv(local, 86400000L);
+        int secondOfDay = (int) (Math.floorMod(local, 86400000L) / 1000);
+
+        // Converts the days since the epoch into a civil date (proleptic Gregorian calendar).
+        long shifted = days + 719468;
+        long era = Math.floorDiv(shifted, 146097);
+        long dayOfEra = shifted - era * 146097;
+        long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        long shiftedMonth = (5 * dayOfYear + 2) / 153;
+        int day = (int) (dayOfYear - (153 * shiftedMonth + 2) / 5 + 1);
+        int month = (int) (shiftedMonth < 10 ? shiftedMonth + 3 : shiftedMonth - 9);
+        int year = (int) (yearOfEra + era * 400 + (month <= 2 ? 1 : 0));
+
+        writeDigits(year, 0, 4);
+        this.timestamp[4] = '-';
+        writeDigits(month, 5, 2);
+        this.timestamp[7] = '-';
+        writeDigits(day, 8, 2);
+        this.timestamp[10] = ' ';
+        writeDigits(secondOfDay / 3600, 11, 2);
+        this.timestamp[13] = ':';
+        writeDigits(secondOfDay / 60 % 60, 14, 2);
+        this.timestamp[16] = ':';
+        writeDigits(secondOfDay % 60, 17, 2);
+    }
+
+    private void writeDigits(int value, int offset, int count) {
+        for(int i = offset + count - 1; i >= offset; i--) {
+            this.timestamp[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+}
@@ -0,0 +1,55 @@
+/**
+ * GammaConsole (https://github.com/UnexomWid/GammaConsole)
+ *
+ * This project is licensed under the MIT license.
+ * Copyright (c) 2019 UnexomWid (https://uw.exom.dev)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the
+ * following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package me.unexomwid.gammaconsole;
+
+/**
+ * The level of a log.
+ *
+ * @author UnexomWid
+ */
+enum LogLevel {
+
+    VERBOSE("verbose"),
+    DEBUG("debug"),
+    INFO("info"),
+    WARNING("warning"),
+    ERROR("error");
+
+    private static final LogLevel[] LEVELS = values();
+
+    /**
+     * The CSS class of the logs with this level.
+     */
+    final String cssClass;
+
+    LogLevel(String cssClass) {
+        this.cssClass = cssClass;
+    }
+
+    /**
+     * Gets a level by its ordinal.
+     */
+    static LogLevel of(int ordinal) {
+        return LEVELS[ordinal];
+    }
+}
@@ -0,0 +1,190 @@
+/**
+ * GammaConsole (https://github.com/UnexomWid/GammaConsole)
+ *
+ * This project is licensed under the MIT license.
+ * Copyright (c) 2019 UnexomWid (https://uw.exom.dev)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the
+ * following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package me.unexomwid.gammaconsole;
+
+import javax.swing.AbstractListModel;
+
+/**
+ * A list model backed by the log store, used by the virtualized view.
+ *
+ * The model never copies the logs. It only tracks the sequence numbers of the logs that pass the filter of the
+ * view, and reads a log from the store when a row is painted. When the filter lets every log through, the rows
+ * are simply every log from the oldest one up to the newest one, so not even the sequence numbers are tracked.
+ *
+ * If the store has an archive, the archived logs are shown above the kept ones, and are read back from their
+ * segments as they are scrolled to.
+ *
+ * @author UnexomWid
+ */
+final class LogListModel extends AbstractListModel<LogRecord> {
+
+    private final Object storeLock;
+    private LogStore store;
+    private LogFilter filter;
+
+    /**
+     * The sequence numbers of the shown logs, unless every log is shown.
+     */
+    private final SequenceList rows;
+    private boolean everyLog;
+    private long first;
+    private long next;
+
+    LogListModel(Object storeLock) {
+        this.storeLock = storeLock;
+        this.filter = new LogFilter(LogFilter.ALL_LEVELS, "", null);
+        this.rows = new SequenceList();
+    }
+
+    /**
+     * Sets the store that the model reads from. The first update shows the logs that the store already keeps.
+     */
+    void setStore(LogStore store) {
+        this.store = store;
+    }
+
+    /**
+     * Gets the sequence number of the log shown in a row.
+     */
+    long getSequence(int row) {
+        return this.everyLog ? this.first + row : this.rows.get(row);
+    }
+
+    /**
+     * Gets the row that shows a log, or -1 if the log is not shown.
+     */
+    int indexOf(long sequence) {
+        if(this.everyLog)
+            return sequence >= this.first && sequence < this.next ? (int) (sequence - this.first) : -1;
+
+        return this.rows.indexOf(sequence);
+    }
+
+    /**
+     * Gets the first row that shows a log at or after the specified one, or the last row if there is none.
+     */
+    int rowAtOrAfter(long sequence) {
+        int row = this.everyLog ? (int) Math.max(0, Math.min(sequence - this.first, Integer.MAX_VALUE)) : this.rows.countBefore(sequence);
+        return Math.min(row, getSize() - 1);
+    }
+
+    @Override
+    public int getSize() {
+        return this.everyLog ? (int) (this.next - this.first) : this.rows.size();
+    }
+
+    /**
+     * Gets a log, or null if it was evicted from the store since the last update.
+     */
+    @Override
+    public LogRecord getElementAt(int index) {
+        long sequence = getSequence(index);
+
+        synchronized(this.storeLock) {
+            if(sequence < this.store.oldest() || sequence >= this.store.next())
+                return null;
+            return this.store.get(sequence);
+        }
+    }
+
+    /**
+     * Sets the filter of the view, and selects the kept logs that pass it. Runs on the EDT.
+     */
+    void setFilter(LogFilter filter) {
+        int size = getSize();
+        this.filter = filter;
+        this.everyLog = filter.acceptsAll();
+        this.rows.clear();
+        this.first = 0;
+        this.next = 0;
+        if(size > 0)
+            fireIntervalRemoved(this, 0, size - 1);
+
+        update();
+    }
+
+    /**
+     * Drops the evicted logs, and adds the new logs that pass the filter. Runs on the EDT.
+     */
+    void update() {
+        int removed;
+        int start;
+
+        if(this.everyLog) {
+            synchronized(this.storeLock) {
+                long first = Math.max(this.first, this.store.oldest());
+                removed = (int) (Math.min(first, this.next) - this.first);
+                start = (int) (Math.max(first, this.next) - first);
+
+                this.first = first;
+                this.next = Math.max(this.next, this.store.next());
+            }
+        }
+        else {
+            LogArchive archive;
+            long kept;
+
+            synchronized(this.storeLock) {
+                removed = this.rows.countBefore(this.store.oldest());
+                this.rows.removeFirst(removed);
+
+                start = this.rows.size();
+                archive = this.store.archive();
+                kept = this.store.first();
+            }
+
+            // Scanning the archive can take a while, so it is done without holding the store.
+            if(archive != null && this.next < kept) {
+                archive.select(this.filter, this.next, kept, this.rows);
+                this.next = kept;
+            }
+
+            synchronized(this.storeLock) {
+                // The logs archived since then are few, and still close to the end of the archive.
+                if(archive != null && this.next < this.store.first())
+                    archive.select(this.filter, this.next, this.store.first(), this.rows);
+                this.store.select(this.filter, this.next, this.rows);
+                this.next = this.store.next();
+            }
+        }
+
+        if(removed > 0)
+            fireIntervalRemoved(this, 0, removed - 1);
+        if(getSize() > start)
+            fireIntervalAdded(this, start, getSize() - 1);
+    }
+
+    /**
+     * Removes all rows. Runs on the EDT.
+     */
+    void clear() {
+        int size = getSize();
+        this.rows.clear();
+        synchronized(this.storeLock) {
+            this.next = this.store.next();
+        }
+        this.first = this.next;
+        if(size > 0)
+            fireIntervalRemoved(this, 0, size - 1);
+    }
+}
@@ -0,0 +1,136 @@
+/**
+ * GammaConsole (https://github.com/UnexomWid/GammaConsole)
+ *
+ * This project is licensed under the MIT license.
+ * Copyright (c) 2019 UnexomWid (https://uw.exom.dev)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the
+ * following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package me.unexomwid.gammaconsole;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Collects the metrics of a log: the rate of each level, the time from printing a log to showing it, and the time
+ * spent by the window on each flush.
+ *
+ * @author UnexomWid
+ */
+final class LogMetrics {
+
+    private static final long RATE_INTERVAL = 1000;
+    private static final long HISTOGRAM_INTERVAL = 10000;
+    /**
+     * The maximum amount of batches that wait to be shown. Older batches are not measured.
+     */
+    private static final int MAX_PENDING_BATCHES = 1024;
+
+    /**
+     * The time from printing a log to showing it, in milliseconds.
+     */
+    final LatencyHistogram latency;
+    /**
+     * The time spent by the window on each flush, in microseconds.
+     */
+    final LatencyHistogram flushTime;
+
+    private final long[] levelCounts;
+    private final long[] rateStartCounts;
+    private long rateStart;
+    private volatile double[] levelRates;
+
+    /**
+     * The ranges of sequence numbers of the printed logs that are not shown yet, as pairs of start and end.
+     */
+    private long[] pendingBatches;
+    private int pendingBatchCount;
+
+    LogMetrics() {
+        this.latency = new LatencyHistogram(HISTOGRAM_INTERVAL);
+        this.flushTime = new LatencyHistogram(HISTOGRAM_INTERVAL);
+
+        this.levelCounts = new long[LogLevel.values().length];
+        this.rateStartCounts = new long[this.levelCounts.length];
+        this.levelRates = new double[this.levelCounts.length];
+        this.pendingBatches = new long[16];
+    }
+
+    /**
+     * Counts the logs moved into the store, and updates the rates once per second. Only used by the ingest thread,
+     * once per frame.
+     */
+    void count(ArrayList<LogRecord> records, long now) {
+        for(int i = 0; i < records.size(); i++)
+            this.levelCounts[records.get(i).level.ordinal()]++;
+
+        long elapsed = now - this.rateStart;
+        if(elapsed < RATE_INTERVAL)
+            return;
+
+        double[] rates = new double[this.levelCounts.length];
+        for(int i = 0; i < rates.length; i++) {
+            rates[i] = (this.levelCounts[i] - this.rateStartCounts[i]) * 1000.0 / elapsed;
+            this.rateStartCounts[i] = this.levelCounts[i];
+        }
+
+        this.levelRates = rates;
+        this.rateStart = now;
+    }
+
+    /**
+     * Gets the amount of logs of each level moved into the store per second, during the last second.
+     */
+    double[] levelRates() {
+        return this.levelRates;
+    }
+
+    /**
+     * Remembers a batch of printed logs, whose latency is measured when the window shows them. Must be called
+     * while holding the store lock.
+     */
+    void addPending(long start, long end) {
+        if(start == end)
+            return;
+
+        if(this.pendingBatchCount == MAX_PENDING_BATCHES) {
+            // Nothing shows the logs, so only the newest batches are measured.
+            System.arraycopy(this.pendingBatches, 2, this.pendingBatches, 0, 2 * (this.pendingBatchCount - 1));
+            this.pendingBatchCount--;
+        }
+
+        if(2 * this.pendingBatchCount == this.pendingBatches.length)
+            this.pendingBatches = Arrays.copyOf(this.pendingBatches, 2 * this.pendingBatches.length);
+
+        this.pendingBatches[2 * this.pendingBatchCount] = start;
+        this.pendingBatches[2 * this.pendingBatchCount + 1] = end;
+        this.pendingBatchCount++;
+    }
+
+    /**
+     * Records the latency of the pending logs, which were just shown. Must be called while holding the store lock.
+     */
+    void recordShown(LogStore store, long now) {
+        for(int i = 0; i < this.pendingBatchCount; i++) {
+            long end = this.pendingBatches[2 * i + 1];
+            for(long sequence = Math.max(this.pendingBatches[2 * i], store.first()); sequence < end; sequence++)
+                this.latency.record(now - store.time(sequence), now);
+        }
+
+        this.pendingBatchCount = 0;
+    }
+}
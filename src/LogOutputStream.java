@@ -0,0 +1,96 @@
+/**
+ * GammaConsole (https://github.com/UnexomWid/GammaConsole)
+ *
+ * This project is licensed under the MIT license.
+ * Copyright (c) 2019 UnexomWid (https://uw.exom.dev)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the
+ * following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package me.unexomwid.gammaconsole;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+/**
+ * A stream that turns every line written to it into a log, used to redirect System.out and System.err.
+ *
+ * @author UnexomWid
+ */
+final class LogOutputStream extends OutputStream {
+
+    private final GammaLog log;
+    private final LogLevel level;
+    private final String caller;
+    private final PrintStream echo;
+    private final Charset charset;
+
+    private byte[] line;
+    private int length;
+
+    /**
+     * @param log The log into which to write.
+     * @param level The level of the logs.
+     * @param caller The caller of the logs.
+     * @param echo The stream to which to also write everything, or null.
+     */
+    LogOutputStream(GammaLog log, LogLevel level, String caller, PrintStream echo) {
+        this.log = log;
+        this.level = level;
+        this.caller = caller;
+        this.echo = echo;
+        this.charset = Charset.defaultCharset();
+        this.line = new byte[256];
+    }
+
+    @Override
+    public synchronized void write(int b) {
+        if(this.echo != null)
+            this.echo.write(b);
+        append((byte) b);
+    }
+
+    @Override
+    public synchronized void write(byte[] bytes, int offset, int length) {
+        if(this.echo != null)
+            this.echo.write(bytes, offset, length);
+
+        for(int i = offset; i < offset + length; i++)
+            append(bytes[i]);
+    }
+
+    @Override
+    public synchronized void flush() {
+        if(this.echo != null)
+            this.echo.flush();
+    }
+
+    private void append(byte b) {
+        if(b == '\n') {
+            int end = this.length > 0 && this.line[this.length - 1] == '\r' ? this.length - 1 : this.length;
+            String text = new String(this.line, 0, end, this.charset);
+            this.log.offer(this.level, System.currentTimeMillis(), this.caller, LogFormatter.escapeHtml(text), Thread.currentThread().getName());
+            this.length = 0;
+            return;
+        }
+
+        if(this.length == this.line.length)
+            this.line = Arrays.copyOf(this.line, 2 * this.length);
+        this.line[this.length++] = b;
+    }
+}
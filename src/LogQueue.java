@@ -0,0 +1,125 @@
+/**
+ * GammaConsole (https://github.com/UnexomWid/GammaConsole)
+ *
+ * This project is licensed under the MIT license.
+ * Copyright (c) 2019 UnexomWid (https://uw.exom.dev)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the
+ * following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package me.unexomwid.gammaconsole;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A bounded, lock-free queue that can be fed by any number of threads and is drained by a single consumer at a time.
+ *
+ * Every slot carries a sequence number which tells producers when the slot is free, and the consumer when it holds
+ * a published element, so neither side ever takes a lock.
+ *
+ * @author UnexomWid
+ */
+final class LogQueue<E> {
+
+    private final int mask;
+    private final Object[] elements;
+    private final AtomicLongArray sequences;
+
+    private final AtomicLong tail;
+    private volatile long head;
+
+    /**
+     * Creates a queue that holds at least the specified amount of elements.
+     *
+     * @param capacity The minimum capacity of the queue. It is rounded up to a power of 2.
+     */
+    LogQueue(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+
+        this.mask = size - 1;
+        this.elements = new Object[size];
+        this.sequences = new AtomicLongArray(size);
+        for(int i = 0; i < size; i++)
+            this.sequences.set(i, i);
+
+        this.tail = new AtomicLong();
+        this.head = 0;
+    }
+
+    /**
+     * Gets the capacity of the queue.
+     */
+    int capacity() {
+        return this.mask + 1;
+    }
+
+    /**
+     * Gets the approximate amount of elements in the queue.
+     */
+    int size() {
+        return (int) Math.max(0, this.tail.get() - this.head);
+    }
+
+    /**
+     * Adds an element to the queue. Can be called from any thread.
+     *
+     * @param element The element to add.
+     *
+     * @return False if the queue is full, true otherwise.
+     */
+    boolean offer(E element) {
+        long position = this.tail.get();
+
+        while(true) {
+            int index = (int) position & this.mask;
+            long difference = this.sequences.get(index) - position;
+
+            if(difference == 0) {
+                if(this.tail.compareAndSet(position, position + 1)) {
+                    this.elements[index] = element;
+                    this.sequences.set(index, position + 1);
+                    return true;
+                }
+                position = this.tail.get();
+            }
+            else if(difference < 0)
+                return false;
+            else position = this.tail.get();
+        }
+    }
+
+    /**
+     * Removes the oldest element from the queue. Must only be called by one thread at a time.
+     *
+     * @return The oldest element, or null if the queue is empty.
+     */
+    @SuppressWarnings("unchecked")
+    E poll() {
+        long position = this.head;
+        int index = (int) position & this.mask;
+
+        if(this.sequences.get(index) != position + 1)
+            return null;
+
+        E element = (E) this.elements[index];
+        this.elements[index] = null;
+        this.sequences.lazySet(index, position + this.mask + 1);
+        this.head = position + 1;
+
+        return element;
+    }
+}
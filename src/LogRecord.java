@@ -0,0 +1,69 @@
+/**
+ * GammaConsole (https://github.com/UnexomWid/GammaConsole)
+ *
+ * This project is licensed under the MIT license.
+ * Copyright (c) 2019 UnexomWid (https://uw.exom.dev)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the
+ * following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package me.unexomwid.gammaconsole;
+
+/**
+ * A log, as printed by one of the console's level methods.
+ *
+ * @author UnexomWid
+ */
+final class LogRecord {
+
+    final LogLevel level;
+    /**
+     * The time at which the log was printed, in milliseconds since the epoch.
+     */
+    final long time;
+    final String caller;
+    final String message;
+    /**
+     * The name of the thread that printed the log.
+     */
+    final String thread;
+    /**
+     * The name of the channel on which the log was printed, or null if it was printed on the log itself.
+     */
+    final String channel;
+    /**
+     * The stack trace of the exception printed with the log, or null.
+     */
+    final LogTrace trace;
+
+    LogRecord(LogLevel level, long time, String caller, String message, String thread) {
+        this(level, time, caller, message, thread, null);
+    }
+
+    LogRecord(LogLevel level, long time, String caller, String message, String thread, String channel) {
+        this(level, time, caller, message, thread, channel, null);
+    }
+
+    LogRecord(LogLevel level, long time, String caller, String message, String thread, String channel, LogTrace trace) {
+        this.level = level;
+        this.time = time;
+        this.caller = caller;
+        this.message = message;
+        this.thread = thread;
+        this.channel = channel;
+        this.trace = trace;
+    }
+}
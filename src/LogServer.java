@@ -0,0 +1,373 @@
+/**
+ * GammaConsole (https://github.com/UnexomWid/GammaConsole)
+ *
+ * This project is licensed under the MIT license.
+ * Copyright (c) 2019 UnexomWid (https://uw.exom.dev)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the
+ * following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package me.unexomwid.gammaconsole;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+
+/**
+ * Streams the logs of a log to subscribers on a loopback TCP port, in the binary format (see
+ * {@link BinaryLogWriter}). Each subscriber first gets the header of the format and the most recent kept logs,
+ * then every new log.
+ *
+ * A single thread serves every subscriber with non-blocking I/O. It takes the new logs from the store once per
+ * poll, without registering a listener, and encodes them once for all the subscribers. The kept logs are sent to a
+ * new subscriber in chunks, each one encoded once the previous one was sent, and the new logs are held back until
+ * they are all sent. A subscriber that falls behind the new logs by more than {@link #MAX_PENDING_BYTES} is
+ * disconnected, so it never slows down the application.
+ *
+ * @author UnexomWid
+ */
+final class LogServer implements Closeable {
+
+    private static final long POLL_MILLIS = 50;
+    private static final int MAX_PENDING_BYTES = 8 * 1024 * 1024;
+    private static final int MAX_BATCH_SIZE = 4096;
+
+    private final GammaLog log;
+    private final int backfill;
+    private final Selector selector;
+    private final ServerSocketChannel server;
+    private final Thread thread;
+    private volatile boolean closed;
+
+    private final ArrayList<Subscriber> subscribers;
+    private final ArrayList<LogRecord> records;
+    private final ByteArrayOutputStream encoded;
+    private final BinaryLogWriter writer;
+    private final ByteBuffer discard;
+    /**
+     * The header of the format, which starts the stream of each subscriber.
+     */
+    private final byte[] header;
+    /**
+     * The sequence number of the first log that is not sent yet.
+     */
+    private long next;
+
+    /**
+     * @param log The log to stream. Its store must exist.
+     * @param port The port to listen on, or 0 for any free port.
+     * @param backfill The amount of kept logs sent to each new subscriber.
+     */
+    LogServer(GammaLog log, int port, int backfill) throws IOException {
+        this.log = log;
+        this.backfill = backfill;
+        this.subscribers = new ArrayList<>();
+        this.records = new ArrayList<>();
+        this.encoded = new ByteArrayOutputStream();
+        this.discard = ByteBuffer.allocate(256);
+
+        // The header is only sent to new subscribers, so it is taken out of the stream of the writer.
+        this.writer = new BinaryLogWriter(Channels.newChannel(this.encoded), false);
+        this.writer.flush();
+        this.header = this.encoded.toByteArray();
+        this.encoded.reset();
+
+        synchronized(log.storeLock) {
+            this.next = log.store.next();
+        }
+
+        this.selector = Selector.open();
+        try {
+            this.server = ServerSocketChannel.open();
+            this.server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+            this.server.configureBlocking(false);
+            this.server.register(this.selector, SelectionKey.OP_ACCEPT);
+        }
+        catch(IOException ex) {
+            this.selector.close();
+            throw ex;
+        }
+
+        this.thread = new Thread(this::serve, "GammaConsole-server");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * Gets the port that the server listens on.
+     */
+    int getPort() {
+        return this.server.socket().getLocalPort();
+    }
+
+    /**
+     * Disconnects every subscriber and stops listening.
+     */
+    @Override
+    public void close() throws IOException {
+        this.closed = true;
+        this.selector.wakeup();
+        try {
+            this.thread.join();
+        }
+        catch(InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void serve() {
+        try {
+            while(!this.closed) {
+                this.selector.select(POLL_MILLIS);
+
+                Iterator<SelectionKey> keys = this.selector.selectedKeys().iterator();
+                while(keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+
+                    if(!key.isValid())
+                        continue;
+                    if(key.isAcceptable())
+                        accept();
+                    else {
+                        Subscriber subscriber = (Subscriber) key.attachment();
+                        if(key.isReadable())
+                            read(subscriber);
+                        if(key.isValid() && key.isWritable())
+                            send(subscriber);
+                    }
+                }
+
+                broadcast();
+            }
+        }
+        catch(IOException ex) {
+            ex.printStackTrace();
+        }
+        finally {
+            for(int i = 0; i < this.subscribers.size(); i++)
+                closeQuietly(this.subscribers.get(i).channel);
+            this.subscribers.clear();
+            closeQuietly(this.server);
+            closeQuietly(this.selector);
+        }
+    }
+
+    /**
+     * Accepts a subscriber, and starts sending it the header and the most recent logs which were already sent to the
+     * others.
+     */
+    private void accept() throws IOException {
+        SocketChannel channel = this.server.accept();
+        if(channel == null)
+            return;
+
+        channel.configureBlocking(false);
+        channel.socket().setTcpNoDelay(true);
+        Subscriber subscriber = new Subscriber(channel);
+        subscriber.key = channel.register(this.selector, SelectionKey.OP_READ, subscriber);
+        this.subscribers.add(subscriber);
+
+        subscriber.chunk = ByteBuffer.wrap(this.header);
+        synchronized(this.log.storeLock) {
+            subscriber.backfillNext = Math.max(this.log.store.first(), this.next - this.backfill);
+        }
+        subscriber.backfillEnd = this.next;
+
+        send(subscriber);
+    }
+
+    /**
+     * Encodes the next chunk of the kept logs for a subscriber. The logs are copied in batches, so that the printing
+     * threads do not wait for the whole history.
+     *
+     * @return The chunk, or null if there are no more kept logs to send.
+     */
+    private ByteBuffer encodeBackfill(Subscriber subscriber) throws IOException {
+        synchronized(this.log.storeLock) {
+            // The logs evicted before they could be sent are skipped.
+            long sequence = Math.max(subscriber.backfillNext, this.log.store.first());
+            long end = Math.min(subscriber.backfillEnd, sequence + MAX_BATCH_SIZE);
+            for(; sequence < end; sequence++)
+                this.records.add(this.log.store.get(sequence));
+            subscriber.backfillNext = end;
+        }
+
+        if(this.records.isEmpty()) {
+            subscriber.backfillNext = subscriber.backfillEnd;
+            return null;
+        }
+
+        return encode();
+    }
+
+    /**
+     * Encodes the copied logs as a block.
+     */
+    private ByteBuffer encode() throws IOException {
+        for(int i = 0; i < this.records.size(); i++)
+            this.writer.write(this.records.get(i));
+        this.writer.flush();
+        this.records.clear();
+
+        ByteBuffer data = ByteBuffer.wrap(this.encoded.toByteArray());
+        this.encoded.reset();
+        return data;
+    }
+
+    /**
+     * Reads (and ignores) what a subscriber sends, which is only used to notice that it disconnected.
+     */
+    private void read(Subscriber subscriber) {
+        try {
+            this.discard.clear();
+            if(subscriber.channel.read(this.discard) < 0)
+                disconnect(subscriber);
+        }
+        catch(IOException ex) {
+            disconnect(subscriber);
+        }
+    }
+
+    /**
+     * Encodes the logs added to the store since the last poll once, and queues them for every subscriber.
+     */
+    private void broadcast() throws IOException {
+        if(this.subscribers.isEmpty()) {
+            synchronized(this.log.storeLock) {
+                this.next = this.log.store.next();
+            }
+            return;
+        }
+
+        while(true) {
+            synchronized(this.log.storeLock) {
+                // The logs evicted before they could be sent are skipped.
+                long sequence = Math.max(this.next, this.log.store.first());
+                long end = Math.min(this.log.store.next(), sequence + MAX_BATCH_SIZE);
+                for(; sequence < end; sequence++)
+                    this.records.add(this.log.store.get(sequence));
+                this.next = Math.max(this.next, end);
+            }
+
+            if(this.records.isEmpty())
+                return;
+
+            ByteBuffer frame = encode();
+            for(int i = this.subscribers.size() - 1; i >= 0; i--)
+                enqueue(this.subscribers.get(i), frame.duplicate());
+        }
+    }
+
+    /**
+     * Queues new logs for a subscriber and sends as much as possible right away. A subscriber whose queue still
+     * exceeds the limit afterwards is disconnected.
+     */
+    private void enqueue(Subscriber subscriber, ByteBuffer frame) {
+        subscriber.pending.add(frame);
+        subscriber.pendingBytes += frame.remaining();
+
+        send(subscriber);
+        if(subscriber.key.isValid() && subscriber.pendingBytes > MAX_PENDING_BYTES)
+            disconnect(subscriber);
+    }
+
+    /**
+     * Sends the kept logs, then the queued new logs of a subscriber until its socket is full, then waits until it
+     * can write again.
+     */
+    private void send(Subscriber subscriber) {
+        try {
+            ByteBuffer data;
+            while((data = nextData(subscriber)) != null) {
+                int written = subscriber.channel.write(data);
+                if(data != subscriber.chunk)
+                    subscriber.pendingBytes -= written;
+                if(data.hasRemaining())
+                    break;
+
+                if(data == subscriber.chunk)
+                    subscriber.chunk = null;
+                else subscriber.pending.poll();
+            }
+
+            subscriber.key.interestOps(data == null ? SelectionKey.OP_READ : SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+        }
+        catch(IOException ex) {
+            disconnect(subscriber);
+        }
+    }
+
+    /**
+     * Gets the data to send next to a subscriber: the current chunk of the kept logs, the next one, or the queued
+     * new logs once the kept logs were sent.
+     */
+    private ByteBuffer nextData(Subscriber subscriber) throws IOException {
+        if(subscriber.chunk == null && subscriber.backfillNext < subscriber.backfillEnd)
+            subscriber.chunk = encodeBackfill(subscriber);
+
+        return subscriber.chunk != null ? subscriber.chunk : subscriber.pending.peek();
+    }
+
+    private void disconnect(Subscriber subscriber) {
+        this.subscribers.remove(subscriber);
+        subscriber.key.cancel();
+        closeQuietly(subscriber.channel);
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        try {
+            closeable.close();
+        }
+        catch(IOException ex) {
+            // Closing is best effort.
+        }
+    }
+
+    private static final class Subscriber {
+
+        final SocketChannel channel;
+        /**
+         * The new logs, which are sent after the kept logs.
+         */
+        final ArrayDeque<ByteBuffer> pending;
+        SelectionKey key;
+        long pendingBytes;
+
+        /**
+         * The chunk of the kept logs (or the header) being sent, and the range of the kept logs left to send.
+         */
+        ByteBuffer chunk;
+        long backfillNext;
+        long backfillEnd;
+
+        Subscriber(SocketChannel channel) {
+            this.channel = channel;
+            this.pending = new ArrayDeque<>();
+        }
+    }
+}
@@ -0,0 +1,419 @@
+/**
+ * GammaConsole (https://github.com/UnexomWid/GammaConsole)
+ *
+ * This project is licensed under the MIT license.
+ * Copyright (c) 2019 UnexomWid (https://uw.exom.dev)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the
+ * following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package me.unexomwid.gammaconsole;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * A fixed-capacity ring buffer holding the logs of the console in columnar form.
+ *
+ * Each field of a log is stored in its own array. Callers, thread names and channels repeat a lot, so they are
+ * interned into a symbol table and stored as indices. The symbols are counted, and dropped once no kept log refers
+ * to them, so callers that keep changing (e.g. pool threads) do not grow the table. Every log gets a sequence number;
+ * once the store is full (or exceeds its size budget), adding a log evicts the oldest one in constant time.
+ *
+ * If the store has an archive, the evicted logs are moved into it, where they can still be read (see
+ * {@link LogArchive}). The archived logs precede the kept ones, from {@link #oldest()} up to {@link #first()}.
+ *
+ * @author UnexomWid
+ */
+final class LogStore {
+
+    /**
+     * The approximate memory used by a log, without its message: the columns plus the message reference and header.
+     */
+    private static final int RECORD_OVERHEAD = 1 + 8 + 4 + 4 + 4 + 4 + 8 + 24;
+    /**
+     * The least amount of unused symbols before the symbol table is compacted.
+     */
+    private static final int MIN_UNUSED_SYMBOLS = 1024;
+
+    private final int capacity;
+    private final long maxSize;
+
+    private final byte[] levels;
+    private final long[] times;
+    private final int[] callers;
+    private final int[] threads;
+    /**
+     * The symbol index of the channel of each log, or -1 for the logs printed on the log itself.
+     */
+    private final int[] channels;
+    private final String[] messages;
+    /**
+     * The stack trace of each log, which is shared by the logs of a repeated exception.
+     */
+    private final LogTrace[] traces;
+    private final LogArchive archive;
+
+    private HashMap<String, Integer> symbolIndices;
+    private ArrayList<String> symbols;
+    /**
+     * The amount of kept logs that refer to each symbol, as caller, thread or channel.
+     */
+    private int[] symbolCounts;
+    /**
+     * The amount of symbols that no kept log refers to anymore.
+     */
+    private int unusedSymbols;
+    private int generation;
+
+    /**
+     * One bitmap per level, with a bit set for each slot holding a log of that level.
+     */
+    private final long[][] levelBits;
+    private final int[] levelCounts;
+    private final LogTimeline timeline;
+
+    private long first;
+    private long next;
+    private long size;
+
+    /**
+     * @param capacity The maximum amount of logs to keep.
+     * @param maxSize The maximum size of the kept logs, in bytes, or 0 for no limit.
+     */
+    LogStore(int capacity, long maxSize) {
+        this(capacity, maxSize, null);
+    }
+
+    /**
+     * @param capacity The maximum amount of logs to keep.
+     * @param maxSize The maximum size of the kept logs, in bytes, or 0 for no limit.
+     * @param archive The archive which receives the evicted logs, or null to discard them.
+     */
+    LogStore(int capacity, long maxSize, LogArchive archive) {
+        this.capacity = Math.max(1, capacity);
+        this.maxSize = maxSize;
+        this.archive = archive;
+
+        this.levels = new byte[this.capacity];
+        this.times = new long[this.capacity];
+        this.callers = new int[this.capacity];
+        this.threads = new int[this.capacity];
+        this.channels = new int[this.capacity];
+        this.messages = new String[this.capacity];
+        this.traces = new LogTrace[this.capacity];
+
+        this.symbolIndices = new HashMap<>();
+        this.symbols = new ArrayList<>();
+        this.symbolCounts = new int[16];
+
+        this.levelBits = new long[LogLevel.values().length][(this.capacity + 63) / 64];
+        this.levelCounts = new int[LogLevel.values().length];
+        this.timeline = new LogTimeline();
+    }
+
+    /**
+     * Gets the sequence number of the oldest kept log.
+     */
+    long first() {
+        return this.first;
+    }
+
+    /**
+     * Gets the sequence number of the oldest log that can still be read, which is archived if the store has an
+     * archive that is not empty.
+     */
+    long oldest() {
+        return this.archive != null && this.archive.end() == this.first ? Math.min(this.archive.first(), this.first) : this.first;
+    }
+
+    /**
+     * Gets the archive of the store, or null if the evicted logs are discarded.
+     */
+    LogArchive archive() {
+        return this.archive;
+    }
+
+    /**
+     * Gets the sequence number that the next log will receive.
+     */
+    long next() {
+        return this.next;
+    }
+
+    /**
+     * Gets the amount of kept logs.
+     */
+    int count() {
+        return (int) (this.next - this.first);
+    }
+
+    /**
+     * Gets the approximate size of the kept logs, in bytes.
+     */
+    long size() {
+        return this.size;
+    }
+
+    /**
+     * Adds a log, evicting the oldest ones if the store is full or over its size budget.
+     *
+     * @param record The log.
+     */
+    void add(LogRecord record) {
+        if(this.next - this.first == this.capacity)
+            evict();
+
+        int index = index(this.next++);
+        int level = record.level.ordinal();
+        this.levels[index] = (byte) level;
+        this.levelBits[level][index >>> 6] |= 1L << index;
+        this.levelCounts[level]++;
+        this.timeline.add(record.level, record.time, this.next - 1);
+        this.times[index] = record.time;
+        this.callers[index] = intern(record.caller);
+        this.threads[index] = intern(record.thread);
+        this.channels[index] = record.channel == null ? -1 : intern(record.channel);
+        this.messages[index] = String.valueOf(record.message);
+        this.traces[index] = record.trace;
+        this.size += sizeOf(this.messages[index]);
+
+        while(this.maxSize > 0 && this.size > this.maxSize && this.next - this.first > 1)
+            evict();
+
+        if(this.unusedSymbols > MIN_UNUSED_SYMBOLS && this.unusedSymbols > this.symbols.size() / 2)
+            compactSymbols();
+    }
+
+    LogLevel level(long sequence) {
+        return LogLevel.of(this.levels[index(sequence)]);
+    }
+
+    long time(long sequence) {
+        return this.times[index(sequence)];
+    }
+
+    String caller(long sequence) {
+        return this.symbols.get(this.callers[index(sequence)]);
+    }
+
+    String message(long sequence) {
+        return this.messages[index(sequence)];
+    }
+
+    String thread(long sequence) {
+        return this.symbols.get(this.threads[index(sequence)]);
+    }
+
+    String channel(long sequence) {
+        int channel = this.channels[index(sequence)];
+        return channel < 0 ? null : this.symbols.get(channel);
+    }
+
+    LogTrace trace(long sequence) {
+        return this.traces[index(sequence)];
+    }
+
+    String symbol(int index) {
+        return this.symbols.get(index);
+    }
+
+    /**
+     * Gets the amount of symbols in the table.
+     */
+    int symbolCount() {
+        return this.symbols.size();
+    }
+
+    /**
+     * Gets the generation of the symbol table, which changes whenever the symbols are cleared or compacted.
+     */
+    int generation() {
+        return this.generation;
+    }
+
+    /**
+     * Gets the amount of kept logs of a level.
+     */
+    int count(LogLevel level) {
+        return this.levelCounts[level.ordinal()];
+    }
+
+    /**
+     * Gets the counts of the logs of each level over time, since the store was last cleared.
+     */
+    LogTimeline timeline() {
+        return this.timeline;
+    }
+
+    /**
+     * Finds the kept logs that pass a filter, using the level bitmaps to skip 64 logs at a time.
+     *
+     * @param filter The filter.
+     * @param from The sequence number from which to start.
+     * @param out Where to append the ascending sequence numbers of the logs.
+     */
+    void select(LogFilter filter, long from, SequenceList out) {
+        long sequence = Math.max(from, this.first);
+
+        while(sequence < this.next) {
+            int slot = index(sequence);
+            int word = slot >>> 6;
+            // The slots of this word that are in range: up to the end of the word, the ring or the logs.
+            int limit = (int) Math.min(Math.min((word + 1) << 6, this.capacity), slot + (this.next - sequence));
+
+            long bits = 0;
+            for(int level = 0; level < this.levelBits.length; level++)
+                if(filter.acceptsLevel(level))
+                    bits |= this.levelBits[level][word];
+
+            bits &= -1L << slot;
+            if((limit & 63) != 0)
+                bits &= (1L << limit) - 1;
+
+            while(bits != 0) {
+                int match = (word << 6) + Long.numberOfTrailingZeros(bits);
+                if(filter.acceptsCaller(this.callers[match], this) && filter.acceptsChannel(this.channels[match], this))
+                    out.add(sequence + (match - slot));
+                bits &= bits - 1;
+            }
+
+            sequence += limit - slot;
+        }
+    }
+
+    /**
+     * Gets a kept or archived log.
+     *
+     * @param sequence The sequence number of the log, from oldest() up to next().
+     */
+    LogRecord get(long sequence) {
+        if(sequence < this.first)
+            return this.archive.get(sequence);
+
+        return new LogRecord(level(sequence), time(sequence), caller(sequence), message(sequence), thread(sequence), channel(sequence), trace(sequence));
+    }
+
+    /**
+     * Removes all logs. Sequence numbers keep increasing.
+     */
+    void clear() {
+        if(this.archive != null)
+            this.archive.clear();
+
+        Arrays.fill(this.messages, null);
+        Arrays.fill(this.traces, null);
+        this.symbolIndices = new HashMap<>();
+        this.symbols = new ArrayList<>();
+        this.symbolCounts = new int[16];
+        this.unusedSymbols = 0;
+        this.generation++;
+
+        for(long[] bits : this.levelBits)
+            Arrays.fill(bits, 0);
+        Arrays.fill(this.levelCounts, 0);
+        this.timeline.clear();
+
+        this.first = this.next;
+        this.size = 0;
+    }
+
+    private void evict() {
+        if(this.archive != null)
+            this.archive.add(get(this.first), this.first);
+
+        int index = index(this.first++);
+        int level = this.levels[index];
+        this.levelBits[level][index >>> 6] &= ~(1L << index);
+        this.levelCounts[level]--;
+        this.size -= sizeOf(this.messages[index]);
+        this.messages[index] = null;
+        this.traces[index] = null;
+
+        release(this.callers[index]);
+        release(this.threads[index]);
+        if(this.channels[index] >= 0)
+            release(this.channels[index]);
+    }
+
+    private int intern(String symbol) {
+        symbol = String.valueOf(symbol);
+
+        Integer index = this.symbolIndices.get(symbol);
+        if(index == null) {
+            index = this.symbols.size();
+            this.symbols.add(symbol);
+            this.symbolIndices.put(symbol, index);
+            if(index == this.symbolCounts.length)
+                this.symbolCounts = Arrays.copyOf(this.symbolCounts, 2 * index);
+        }
+        else if(this.symbolCounts[index] == 0)
+            this.unusedSymbols--;
+
+        this.symbolCounts[index]++;
+        return index;
+    }
+
+    private void release(int symbol) {
+        if(--this.symbolCounts[symbol] == 0)
+            this.unusedSymbols++;
+    }
+
+    /**
+     * Drops the symbols that no kept log refers to, and renumbers the others. The filters check the symbols again,
+     * since the generation changes. It only runs once most symbols are unused, so its cost is spread over the logs
+     * that made them unused.
+     */
+    private void compactSymbols() {
+        int[] indices = new int[this.symbols.size()];
+        HashMap<String, Integer> symbolIndices = new HashMap<>();
+        ArrayList<String> symbols = new ArrayList<>();
+        int[] symbolCounts = new int[Math.max(16, this.symbols.size() - this.unusedSymbols)];
+
+        for(int i = 0; i < indices.length; i++) {
+            if(this.symbolCounts[i] == 0)
+                continue;
+
+            indices[i] = symbols.size();
+            symbolCounts[symbols.size()] = this.symbolCounts[i];
+            symbolIndices.put(this.symbols.get(i), symbols.size());
+            symbols.add(this.symbols.get(i));
+        }
+
+        for(long sequence = this.first; sequence < this.next; sequence++) {
+            int index = index(sequence);
+            this.callers[index] = indices[this.callers[index]];
+            this.threads[index] = indices[this.threads[index]];
+            if(this.channels[index] >= 0)
+                this.channels[index] = indices[this.channels[index]];
+        }
+
+        this.symbolIndices = symbolIndices;
+        this.symbols = symbols;
+        this.symbolCounts = symbolCounts;
+        this.unusedSymbols = 0;
+        this.generation++;
+    }
+
+    private int index(long sequence) {
+        return (int) (sequence % this.capacity);
+    }
+
+    private static long sizeOf(String message) {
+        return RECORD_OVERHEAD + 2L * message.length();
+    }
+}
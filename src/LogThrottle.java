@@ -0,0 +1,210 @@
+/**
+ * GammaConsole (https://github.com/UnexomWid/GammaConsole)
+ *
+ * This project is licensed under the MIT license.
+ * Copyright (c) 2019 UnexomWid (https://uw.exom.dev)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the
+ * following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package me.unexomwid.gammaconsole;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Objects;
+
+/**
+ * Limits the amount of logs that each caller can print per second, and collapses repeated messages.
+ *
+ * A message that a caller prints again (with the same level) is not kept; once the caller prints something else,
+ * or stays quiet for a second, a single "Last message repeated n times" log is kept instead. While the repeats go
+ * on, they are also reported once per second. The logs over the rate limit are dropped, and reported the same way
+ * once the second is over. The callers that stay quiet for a second are forgotten. Only used by the ingest thread.
+ *
+ * @author UnexomWid
+ */
+final class LogThrottle {
+
+    /**
+     * How long to wait for more repeats (or rate-limited logs) before reporting them, in milliseconds.
+     */
+    private static final long REPORT_DELAY = 1000;
+
+    private static final class CallerState {
+        final String caller;
+
+        long second;
+        int count;
+        int limited;
+
+        LogRecord last;
+        int repeats;
+        /**
+         * The time of the first repeat that is not reported yet.
+         */
+        long repeatsSince;
+        long lastTime;
+        String lastThread;
+        String lastChannel;
+        boolean pending;
+
+        CallerState(String caller) {
+            this.caller = caller;
+        }
+    }
+
+    private final HashMap<String, CallerState> callers;
+    /**
+     * The callers that have repeats or rate-limited logs which are not reported yet.
+     */
+    private final ArrayList<CallerState> pending;
+
+    private long collapsed;
+    private long limited;
+    private long lastSweep;
+
+    LogThrottle() {
+        this.callers = new HashMap<>();
+        this.pending = new ArrayList<>();
+    }
+
+    /**
+     * Gets the amount of repeated messages that were collapsed.
+     */
+    long collapsed() {
+        return this.collapsed;
+    }
+
+    /**
+     * Gets the amount of logs that were dropped by the rate limit.
+     */
+    long limited() {
+        return this.limited;
+    }
+
+    /**
+     * Passes a log through the throttle.
+     *
+     * @param record The log.
+     * @param rateLimit The maximum amount of logs per caller per second, or 0 for no limit.
+     * @param collapse Whether to collapse repeated messages.
+     * @param out Where to append the log, if it is kept, preceded by the reports that it causes.
+     */
+    void add(LogRecord record, int rateLimit, boolean collapse, ArrayList<LogRecord> out) {
+        String caller = String.valueOf(record.caller);
+        CallerState state = this.callers.get(caller);
+        if(state == null) {
+            state = new CallerState(caller);
+            this.callers.put(caller, state);
+        }
+
+        if(collapse && state.last != null && record.level == state.last.level && record.message != null && record.message.equals(state.last.message) && Objects.equals(record.channel, state.last.channel) && Objects.equals(record.trace, state.last.trace)) {
+            if(state.repeats++ == 0)
+                state.repeatsSince = record.time;
+            this.collapsed++;
+            touch(state, record);
+            markPending(state);
+            return;
+        }
+
+        if(state.repeats > 0)
+            reportRepeats(state, false, out);
+
+        long second = Math.floorDiv(record.time, 1000);
+        if(second != state.second) {
+            if(state.limited > 0)
+                reportLimited(state, out);
+            state.second = second;
+            state.count = 0;
+        }
+
+        if(rateLimit > 0 && state.count >= rateLimit) {
+            state.limited++;
+            this.limited++;
+            touch(state, record);
+            markPending(state);
+            return;
+        }
+
+        state.count++;
+        state.last = record;
+        touch(state, record);
+        out.add(record);
+    }
+
+    /**
+     * Reports the repeats and rate-limited logs of the callers that stayed quiet for a while, and the repeats that
+     * went on for a while. Forgets the callers that stayed quiet.
+     *
+     * @param now The current time, in milliseconds since the epoch.
+     * @param out Where to append the reports.
+     */
+    void flush(long now, ArrayList<LogRecord> out) {
+        for(int i = this.pending.size() - 1; i >= 0; i--) {
+            CallerState state = this.pending.get(i);
+            if(now - state.lastTime < REPORT_DELAY) {
+                if(state.repeats > 0 && now - state.repeatsSince >= REPORT_DELAY)
+                    reportRepeats(state, true, out);
+                continue;
+            }
+
+            if(state.repeats > 0)
+                reportRepeats(state, false, out);
+            if(state.limited > 0 && Math.floorDiv(now, 1000) != state.second)
+                reportLimited(state, out);
+
+            if(state.repeats == 0 && state.limited == 0) {
+                state.pending = false;
+                this.pending.set(i, this.pending.get(this.pending.size() - 1));
+                this.pending.remove(this.pending.size() - 1);
+            }
+        }
+
+        if(now - this.lastSweep >= REPORT_DELAY) {
+            this.lastSweep = now;
+            this.callers.values().removeIf(state -> !state.pending && now - state.lastTime >= REPORT_DELAY);
+        }
+    }
+
+    private static void touch(CallerState state, LogRecord record) {
+        state.lastTime = record.time;
+        state.lastThread = record.thread;
+        state.lastChannel = record.channel;
+    }
+
+    private void markPending(CallerState state) {
+        if(!state.pending) {
+            state.pending = true;
+            this.pending.add(state);
+        }
+    }
+
+    /**
+     * @param ongoing Whether the repeats go on. If they do, the next repeats are still collapsed; otherwise, the next
+     *                message is shown again, even if it is the same one.
+     */
+    private void reportRepeats(CallerState state, boolean ongoing, ArrayList<LogRecord> out) {
+        out.add(new LogRecord(state.last.level, state.lastTime, state.caller, String.format("Last message repeated %,d times", state.repeats), state.lastThread, state.lastChannel));
+        state.repeats = 0;
+        if(!ongoing)
+            state.last = null;
+    }
+
+    private void reportLimited(CallerState state, ArrayList<LogRecord> out) {
+        out.add(new LogRecord(LogLevel.WARNING, state.lastTime, state.caller, String.format("%,d logs were dropped by the rate limit", state.limited), state.lastThread, state.lastChannel));
+        state.limited = 0;
+    }
+}
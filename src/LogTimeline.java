@@ -0,0 +1,146 @@
+/**
+ * GammaConsole (https://github.com/UnexomWid/GammaConsole)
+ *
+ * This project is licensed under the MIT license.
+ * Copyright (c) 2019 UnexomWid (https://uw.exom.dev)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the
+ * following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package me.unexomwid.gammaconsole;
+
+import java.util.Arrays;
+
+/**
+ * Counts the logs of each level over time, in a fixed amount of buckets, so that the console can show where the
+ * logs cluster without going through them.
+ *
+ * The counts are updated as the logs are added to the store. The buckets start one second wide; once the logs
+ * outgrow the last bucket, the width is doubled by merging the buckets in pairs, so the whole session always fits
+ * and adding a log never costs more than a few increments. The counts include the evicted logs.
+ *
+ * @author UnexomWid
+ */
+final class LogTimeline {
+
+    static final int BUCKETS = 256;
+    private static final long INITIAL_WIDTH = 1000;
+
+    /**
+     * The amount of logs of each level in each bucket.
+     */
+    private final int[][] counts;
+    /**
+     * The sequence number of the first log of each bucket, or -1 for the empty buckets.
+     */
+    private final long[] firstSequences;
+
+    private long origin;
+    private long width;
+    private int size;
+
+    LogTimeline() {
+        this.counts = new int[LogLevel.values().length][BUCKETS];
+        this.firstSequences = new long[BUCKETS];
+        clear();
+    }
+
+    /**
+     * Counts a log. Logs older than the first one (e.g. loaded from a file) are counted in the first bucket.
+     *
+     * @param level The level of the log.
+     * @param time The time of the log, in milliseconds.
+     * @param sequence The sequence number of the log.
+     */
+    void add(LogLevel level, long time, long sequence) {
+        if(this.size == 0)
+            this.origin = time;
+
+        long offset = Math.max(0, time - this.origin);
+        while(offset / this.width >= BUCKETS)
+            merge();
+
+        int bucket = (int) (offset / this.width);
+        this.counts[level.ordinal()][bucket]++;
+        if(this.firstSequences[bucket] < 0)
+            this.firstSequences[bucket] = sequence;
+        if(bucket >= this.size)
+            this.size = bucket + 1;
+    }
+
+    /**
+     * Gets the time at which the first bucket starts, in milliseconds.
+     */
+    long origin() {
+        return this.origin;
+    }
+
+    /**
+     * Gets the width of the buckets, in milliseconds.
+     */
+    long width() {
+        return this.width;
+    }
+
+    /**
+     * Gets the amount of buckets in use, up to the one holding the newest log.
+     */
+    int size() {
+        return this.size;
+    }
+
+    /**
+     * Copies the counts and the first sequence numbers of the buckets in use.
+     *
+     * @param counts Where to copy the counts, one array of BUCKETS counts per level.
+     * @param firstSequences Where to copy the sequence numbers, BUCKETS long.
+     */
+    void copy(int[][] counts, long[] firstSequences) {
+        for(int level = 0; level < this.counts.length; level++)
+            System.arraycopy(this.counts[level], 0, counts[level], 0, this.size);
+        System.arraycopy(this.firstSequences, 0, firstSequences, 0, this.size);
+    }
+
+    void clear() {
+        for(int[] levelCounts : this.counts)
+            Arrays.fill(levelCounts, 0);
+        Arrays.fill(this.firstSequences, -1);
+
+        this.origin = 0;
+        this.width = INITIAL_WIDTH;
+        this.size = 0;
+    }
+
+    /**
+     * Doubles the width of the buckets, merging them in pairs.
+     */
+    private void merge() {
+        for(int bucket = 0; bucket < BUCKETS / 2; bucket++) {
+            for(int[] levelCounts : this.counts)
+                levelCounts[bucket] = levelCounts[2 * bucket] + levelCounts[2 * bucket + 1];
+
+            long first = this.firstSequences[2 * bucket];
+            this.firstSequences[bucket] = first >= 0 ? first : this.firstSequences[2 * bucket + 1];
+        }
+
+        for(int[] levelCounts : this.counts)
+            Arrays.fill(levelCounts, BUCKETS / 2, BUCKETS, 0);
+        Arrays.fill(this.firstSequences, BUCKETS / 2, BUCKETS, -1);
+
+        this.width *= 2;
+        this.size = (this.size + 1) / 2;
+    }
+}
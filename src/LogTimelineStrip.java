@@ -0,0 +1,205 @@
+/**
+ * GammaConsole (https://github.com/UnexomWid/GammaConsole)
+ *
+ * This project is licensed under the MIT license.
+ * Copyright (c) 2019 UnexomWid (https://uw.exom.dev)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the
+ * following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package me.unexomwid.gammaconsole;
+
+import javax.swing.JComponent;
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+
+/**
+ * A strip beside the logs which shows how many logs of each level were printed over time (see {@link LogTimeline}),
+ * from the first log at the top to the newest one at the bottom. Clicking a bucket scrolls to its first log.
+ *
+ * Each bucket is a bar whose length grows with the logs in it, split by level, with the errors and warnings always
+ * visible. The strip only copies the few counts of the timeline when the store changes, so painting it costs the
+ * same whatever the amount of logs.
+ *
+ * @author UnexomWid
+ */
+final class LogTimelineStrip extends JComponent {
+
+    static final int WIDTH = 24;
+
+    /**
+     * The least width of the errors and warnings in a bar, in pixels.
+     */
+    private static final int MIN_SEVERE_WIDTH = 2;
+
+    private final GammaConsole console;
+
+    private final int[][] counts;
+    private final long[] firstSequences;
+    private final int[] totals;
+    private long origin;
+    private long width;
+    private int size;
+    private int maxTotal;
+
+    private long next;
+    private long first;
+
+    LogTimelineStrip(GammaConsole console) {
+        this.console = console;
+        this.counts = new int[LogLevel.values().length][LogTimeline.BUCKETS];
+        this.firstSequences = new long[LogTimeline.BUCKETS];
+        this.totals = new int[LogTimeline.BUCKETS];
+        this.next = -1;
+
+        this.setPreferredSize(new Dimension(WIDTH, 0));
+        this.setToolTipText("");
+
+        this.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mousePressed(MouseEvent event) {
+                int bucket = bucketAt(event.getY());
+                if(bucket < 0)
+                    return;
+
+                // Jumps to the first log at or after the bucket.
+                while(bucket < size && firstSequences[bucket] < 0)
+                    bucket++;
+                if(bucket < size)
+                    LogTimelineStrip.this.console.scrollToLog(firstSequences[bucket]);
+            }
+        });
+    }
+
+    /**
+     * Copies the counts of the timeline of the store, if it changed since the last update. Runs on the EDT, while
+     * holding the store lock.
+     */
+    void update(LogStore store) {
+        LogTimeline timeline = store.timeline();
+        if(store.next() == this.next && store.first() == this.first && timeline.size() == this.size)
+            return;
+
+        this.next = store.next();
+        this.first = store.first();
+        this.origin = timeline.origin();
+        this.width = timeline.width();
+        this.size = timeline.size();
+        timeline.copy(this.counts, this.firstSequences);
+
+        this.maxTotal = 0;
+        for(int bucket = 0; bucket < this.size; bucket++) {
+            int total = 0;
+            for(int[] levelCounts : this.counts)
+                total += levelCounts[bucket];
+            this.totals[bucket] = total;
+            this.maxTotal = Math.max(this.maxTotal, total);
+        }
+
+        this.repaint();
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        int width = this.getWidth();
+        int height = this.getHeight();
+
+        g.setColor(this.console.getBackgroundColor());
+        g.fillRect(0, 0, width, height);
+        g.setColor(this.console.getBorderColor());
+        g.drawLine(0, 0, 0, height);
+
+        if(this.size == 0)
+            return;
+
+        double scale = (width - 2) / Math.log1p(this.maxTotal);
+        for(int bucket = 0; bucket < this.size; bucket++) {
+            int total = this.totals[bucket];
+            if(total == 0)
+                continue;
+
+            int top = (int) ((long) bucket * height / this.size);
+            int bottom = Math.max(top + 1, (int) ((long) (bucket + 1) * height / this.size));
+            // The bars grow logarithmically, so that quiet buckets still show next to bursts.
+            int length = Math.max(1, (int) (Math.log1p(total) * scale));
+
+            int x = 2;
+            for(int level = this.counts.length - 1; level >= 0 && x < 2 + length; level--) {
+                int count = this.counts[level][bucket];
+                if(count == 0)
+                    continue;
+
+                int part = (int) Math.round((double) length * count / total);
+                if(level >= LogLevel.WARNING.ordinal())
+                    part = Math.max(part, MIN_SEVERE_WIDTH);
+                part = Math.min(part, 2 + length - x);
+
+                g.setColor(getLevelColor(LogLevel.of(level)));
+                g.fillRect(x, top, part, bottom - top);
+                x += part;
+            }
+        }
+    }
+
+    @Override
+    public String getToolTipText(MouseEvent event) {
+        int bucket = bucketAt(event.getY());
+        if(bucket < 0)
+            return null;
+
+        long start = this.origin + bucket * this.width;
+        StringBuilder text = new StringBuilder();
+        this.console.formatter.appendTimestamp(start, false, text);
+        text.append(" - ");
+        this.console.formatter.appendTimestamp(start + this.width - 1, false, text);
+        text.append(String.format(":  %,d logs", this.totals[bucket]));
+
+        for(int level = this.counts.length - 1; level >= 0; level--)
+            if(this.counts[level][bucket] > 0)
+                text.append(String.format(", %,d %s", this.counts[level][bucket], LogLevel.of(level).cssClass));
+
+        return text.toString();
+    }
+
+    /**
+     * Gets the bucket shown at a height, or -1 if there is none.
+     */
+    private int bucketAt(int y) {
+        if(this.size == 0 || y < 0 || y >= this.getHeight())
+            return -1;
+
+        return (int) ((long) y * this.size / this.getHeight());
+    }
+
+    private Color getLevelColor(LogLevel level) {
+        switch(level) {
+            case DEBUG:
+                return this.console.getDebugColor();
+            case INFO:
+                return this.console.getInfoColor();
+            case WARNING:
+                return this.console.getWarningColor();
+            case ERROR:
+                return this.console.getErrorColor();
+            default:
+                // The rows of the verbose logs have the background color, which would not show on the strip.
+                return this.console.getBorderColor();
+        }
+    }
+}
@@ -0,0 +1,180 @@
+/**
+ * GammaConsole (https://github.com/UnexomWid/GammaConsole)
+ *
+ * This project is licensed under the MIT license.
+ * Copyright (c) 2019 UnexomWid (https://uw.exom.dev)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the
+ * following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package me.unexomwid.gammaconsole;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+/**
+ * The stack trace of an exception printed by printError(Throwable), captured as the frames of the exception, of its
+ * suppressed exceptions and of its causes. The full trace is only formatted when it is needed (e.g. when it is expanded in a window), and then
+ * kept.
+ *
+ * Traces are compared by their content, so that the log can reuse a single trace for an exception that is printed
+ * over and over. A trace that was read back from a file only has its text.
+ *
+ * @author UnexomWid
+ */
+final class LogTrace {
+
+    /**
+     * The first line of the trace: the class of the exception and its message.
+     */
+    final String summary;
+    private final StackTraceElement[] frames;
+    private final LogTrace[] suppressed;
+    private final LogTrace cause;
+    private final int hash;
+
+    private volatile String text;
+    private volatile String html;
+    private volatile String summaryHtml;
+
+    private LogTrace(String summary, StackTraceElement[] frames, LogTrace[] suppressed, LogTrace cause) {
+        this.summary = summary;
+        this.frames = frames;
+        this.suppressed = suppressed;
+        this.cause = cause;
+        this.hash = 31 * (31 * (31 * summary.hashCode() + Arrays.hashCode(frames)) + Arrays.hashCode(suppressed)) + (cause == null ? 0 : cause.hash);
+    }
+
+    /**
+     * Creates a trace from its text, as returned by {@link #text()}.
+     */
+    LogTrace(String text) {
+        int end = text.indexOf('\n');
+        this.summary = end < 0 ? text : text.substring(0, end);
+        this.frames = null;
+        this.suppressed = null;
+        this.cause = null;
+        this.hash = text.hashCode();
+        this.text = text;
+    }
+
+    /**
+     * Captures the trace of an exception, of its suppressed exceptions and of its causes.
+     */
+    static LogTrace of(Throwable throwable) {
+        return of(throwable, Collections.newSetFromMap(new IdentityHashMap<>()));
+    }
+
+    private static LogTrace of(Throwable throwable, Set<Throwable> seen) {
+        seen.add(throwable);
+
+        // An exception that was already captured (i.e. a cycle) is left out.
+        ArrayList<LogTrace> suppressed = new ArrayList<>();
+        for(Throwable exception : throwable.getSuppressed())
+            if(!seen.contains(exception))
+                suppressed.add(of(exception, seen));
+
+        Throwable cause = throwable.getCause();
+        return new LogTrace(String.valueOf(throwable), throwable.getStackTrace(), suppressed.toArray(new LogTrace[0]), cause == null || seen.contains(cause) ? null : of(cause, seen));
+    }
+
+    /**
+     * Gets the summary, as HTML.
+     */
+    String summaryHtml() {
+        String html = this.summaryHtml;
+        if(html == null)
+            this.summaryHtml = html = LogFormatter.escapeHtml(this.summary);
+        return html;
+    }
+
+    /**
+     * Gets the full trace, formatted like Throwable.printStackTrace(), without the final line break.
+     */
+    String text() {
+        String text = this.text;
+        if(text == null) {
+            StringBuilder builder = new StringBuilder();
+            appendTo(builder, new StackTraceElement[0], "", "");
+            this.text = text = builder.toString();
+        }
+        return text;
+    }
+
+    /**
+     * Gets the full trace as HTML. Tabs become non-breaking spaces, so that the frames stay indented.
+     */
+    String html() {
+        String html = this.html;
+        if(html == null)
+            this.html = html = LogFormatter.escapeHtml(text()).replace("\t", "&nbsp;&nbsp;&nbsp;&nbsp;");
+        return html;
+    }
+
+    /**
+     * Appends the trace. Like Throwable.printStackTrace(), the frames in common with the enclosing trace are
+     * replaced by "... n more", and the suppressed exceptions are indented.
+     *
+     * @param caption What the trace is to the enclosing one, e.g. "Caused by: ".
+     * @param prefix The indentation of the trace.
+     */
+    private void appendTo(StringBuilder out, StackTraceElement[] enclosing, String caption, String prefix) {
+        out.append(prefix).append(caption).append(this.summary);
+
+        int last = this.frames.length - 1;
+        for(int i = enclosing.length - 1; last >= 0 && i >= 0 && this.frames[last].equals(enclosing[i]); i--)
+            last--;
+
+        for(int i = 0; i <= last; i++)
+            out.append('\n').append(prefix).append("\tat ").append(this.frames[i]);
+        if(last < this.frames.length - 1)
+            out.append('\n').append(prefix).append("\t... ").append(this.frames.length - 1 - last).append(" more");
+
+        for(LogTrace suppressed : this.suppressed) {
+            out.append('\n');
+            suppressed.appendTo(out, this.frames, "Suppressed: ", prefix + "\t");
+        }
+
+        if(this.cause != null) {
+            out.append('\n');
+            this.cause.appendTo(out, this.frames, "Caused by: ", prefix);
+        }
+    }
+
+    @Override
+    public boolean equals(Object object) {
+        if(this == object)
+            return true;
+        if(!(object instanceof LogTrace))
+            return false;
+
+        LogTrace trace = (LogTrace) object;
+        if(this.hash != trace.hash || !this.summary.equals(trace.summary))
+            return false;
+        if(this.frames == null || trace.frames == null)
+            return this.frames == trace.frames && this.text.equals(trace.text);
+
+        return Arrays.equals(this.frames, trace.frames) && Arrays.equals(this.suppressed, trace.suppressed) && (this.cause == null ? trace.cause == null : this.cause.equals(trace.cause));
+    }
+
+    @Override
+    public int hashCode() {
+        return this.hash;
+    }
+}
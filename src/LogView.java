@@ -0,0 +1,63 @@
+/**
+ * GammaConsole (https://github.com/UnexomWid/GammaConsole)
+ *
+ * This project is licensed under the MIT license.
+ * Copyright (c) 2019 UnexomWid (https://uw.exom.dev)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the
+ * following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package me.unexomwid.gammaconsole;
+
+import javax.swing.JTextPane;
+import javax.swing.text.Element;
+
+/**
+ * The HTML view of a channel tab of the console: its text pane, and the logs that it shows.
+ *
+ * Only the view of the selected tab is brought up to date with the store. The others keep their rows as they are,
+ * and only append the logs that they missed once their tab is selected again.
+ *
+ * @author UnexomWid
+ */
+final class LogView {
+
+    /**
+     * The name of the channel whose logs are shown, or null for the view of every channel.
+     */
+    final String channel;
+    final JTextPane textPane;
+    final LogEditorKit editorKit;
+
+    LogFilter filter;
+    LogDocument document;
+    Element body;
+    boolean empty;
+
+    /**
+     * The sequence numbers of the logs in the document, one for each child of the body.
+     */
+    final SequenceList rows;
+    long next;
+
+    LogView(String channel, JTextPane textPane, LogEditorKit editorKit, LogFilter filter) {
+        this.channel = channel;
+        this.textPane = textPane;
+        this.editorKit = editorKit;
+        this.filter = filter;
+        this.rows = new SequenceList();
+    }
+}
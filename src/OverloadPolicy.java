@@ -0,0 +1,51 @@
+/**
+ * GammaConsole (https://github.com/UnexomWid/GammaConsole)
+ *
+ * This project is licensed under the MIT license.
+ * Copyright (c) 2019 UnexomWid (https://uw.exom.dev)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the
+ * following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package me.unexomwid.gammaconsole;
+
+/**
+ * What to do with the printed logs when the console cannot keep up with them.
+ *
+ * @author UnexomWid
+ */
+public enum OverloadPolicy {
+
+    /**
+     * The printing thread waits until there is room for the log. No log is lost, unless the console has stopped
+     * because of an error. The logging adapters, which never wait, drop the newest log instead.
+     */
+    BLOCK,
+    /**
+     * The oldest log of the printing thread that is still waiting to be shown is dropped, to make room for the new
+     * one.
+     */
+    DROP_OLDEST,
+    /**
+     * The new log is dropped.
+     */
+    DROP_NEWEST,
+    /**
+     * Once half of the waiting room of the printing thread is used, only one in every few logs (the sample rate) is
+     * kept, chosen at random. The new log is dropped if there is no room left.
+     */
+    SAMPLE
+}
@@ -0,0 +1,263 @@
+/**
+ * GammaConsole (https://github.com/UnexomWid/GammaConsole)
+ *
+ * This project is licensed under the MIT license.
+ * Copyright (c) 2019 UnexomWid (https://uw.exom.dev)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the
+ * following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package me.unexomwid.gammaconsole;
+
+import java.util.Arrays;
+
+/**
+ * An inverted index of the trigrams found in the logs, used to search the history without scanning it.
+ *
+ * Each log is indexed (case-insensitively) as its plain text message followed by its caller. For every trigram,
+ * the index keeps the ascending list of sequence numbers of the logs that contain it. Sequence numbers are stored
+ * as ints, compared relative to the oldest indexed log, which is valid as long as the indexed range spans less
+ * than 2^31 logs. Postings of evicted logs are skipped, and removed in bulk by compact().
+ *
+ * @author UnexomWid
+ */
+final class SearchIndex {
+
+    private static final long EMPTY = -1;
+
+    /**
+     * An open-addressing hash table, mapping trigrams to posting lists.
+     */
+    private long[] keys;
+    private int[] lists;
+    private int keyCount;
+
+    private int[][] postings;
+    private int[] sizes;
+    private int listCount;
+
+    private long first;
+    private final StringBuilder text;
+
+    SearchIndex() {
+        this.text = new StringBuilder();
+        clear();
+    }
+
+    /**
+     * Removes all logs from the index.
+     */
+    synchronized void clear() {
+        this.keys = new long[1024];
+        Arrays.fill(this.keys, EMPTY);
+        this.lists = new int[this.keys.length];
+        this.keyCount = 0;
+
+        this.postings = new int[256][];
+        this.sizes = new int[256];
+        this.listCount = 0;
+    }
+
+    /**
+     * Indexes a log. Logs must be added in the order of their sequence numbers.
+     */
+    synchronized void add(long sequence, String message, String caller) {
+        this.text.setLength(0);
+        LogFormatter.appendPlainText(message, this.text);
+        this.text.append('\n').append(caller);
+
+        int value = (int) sequence;
+        long trigram = 0;
+
+        for(int i = 0; i < this.text.length(); i++) {
+            trigram = ((trigram << 16) | Character.toLowerCase(this.text.charAt(i))) & 0xFFFFFFFFFFFFL;
+            if(i < 2)
+                continue;
+
+            int list = getList(trigram);
+            int size = this.sizes[list];
+
+            // A trigram that appears several times in the same log is only indexed once.
+            if(size > 0 && this.postings[list][size - 1] == value)
+                continue;
+
+            if(size == this.postings[list].length)
+                this.postings[list] = Arrays.copyOf(this.postings[list], 2 * size);
+            this.postings[list][size] = value;
+            this.sizes[list] = size + 1;
+        }
+    }
+
+    /**
+     * Finds the logs that may contain the query. Every log that contains it is returned, but the caller must check
+     * the candidates, since holding all the trigrams of the query does not mean holding the query itself.
+     *
+     * @param query The query. It must have at least 3 chars.
+     * @param first The sequence number of the oldest kept log. Older logs are ignored.
+     *
+     * @return The ascending sequence numbers of the candidates.
+     */
+    synchronized long[] findCandidates(String query, long first) {
+        this.first = first;
+
+        // Intersects the posting lists, starting from the shortest one.
+        int[] queryLists = new int[query.length() - 2];
+        long trigram = 0;
+        int count = 0;
+
+        for(int i = 0; i < query.length(); i++) {
+            trigram = ((trigram << 16) | Character.toLowerCase(query.charAt(i))) & 0xFFFFFFFFFFFFL;
+            if(i < 2)
+                continue;
+
+            int slot = findSlot(trigram);
+            if(this.keys[slot] == EMPTY)
+                return new long[0];
+            queryLists[count++] = this.lists[slot];
+        }
+
+        int shortest = 0;
+        for(int i = 1; i < count; i++)
+            if(this.sizes[queryLists[i]] < this.sizes[queryLists[shortest]])
+                shortest = i;
+
+        int[] base = this.postings[queryLists[shortest]];
+        long[] candidates = new long[this.sizes[queryLists[shortest]]];
+        int candidateCount = 0;
+        int[] positions = new int[count];
+
+        for(int i = 0; i < this.sizes[queryLists[shortest]]; i++) {
+            int value = base[i];
+            if(compare(value, (int) first) < 0)
+                continue;
+
+            boolean everywhere = true;
+            for(int j = 0; j < count && everywhere; j++) {
+                if(j == shortest)
+                    continue;
+
+                int list = queryLists[j];
+                int position = advance(this.postings[list], this.sizes[list], positions[j], value);
+                positions[j] = position;
+                everywhere = position < this.sizes[list] && this.postings[list][position] == value;
+            }
+
+            if(everywhere)
+                candidates[candidateCount++] = first + (value - (int) first);
+        }
+
+        return Arrays.copyOf(candidates, candidateCount);
+    }
+
+    /**
+     * Removes the postings of the logs older than the specified one.
+     *
+     * @param first The sequence number of the oldest kept log.
+     */
+    synchronized void compact(long first) {
+        this.first = first;
+
+        for(int list = 0; list < this.listCount; list++) {
+            int size = this.sizes[list];
+            int start = advance(this.postings[list], size, 0, (int) first);
+            if(start == 0)
+                continue;
+
+            System.arraycopy(this.postings[list], start, this.postings[list], 0, size - start);
+            this.sizes[list] = size - start;
+        }
+    }
+
+    /**
+     * Finds the first position, starting from the specified one, whose value is not lower than the target.
+     */
+    private int advance(int[] list, int size, int position, int target) {
+        // Gallops, then searches binarily, since the candidates are usually sparse.
+        int step = 1;
+        int low = position;
+        int high = position;
+
+        while(high < size && compare(list[high], target) < 0) {
+            low = high + 1;
+            high += step;
+            step <<= 1;
+        }
+
+        high = Math.min(high, size);
+        while(low < high) {
+            int middle = (low + high) >>> 1;
+            if(compare(list[middle], target) < 0)
+                low = middle + 1;
+            else high = middle;
+        }
+
+        return low;
+    }
+
+    private int compare(int a, int b) {
+        int base = (int) this.first;
+        return Integer.compare(a - base, b - base);
+    }
+
+    private int getList(long trigram) {
+        int slot = findSlot(trigram);
+        if(this.keys[slot] != EMPTY)
+            return this.lists[slot];
+
+        if(this.listCount == this.postings.length) {
+            this.postings = Arrays.copyOf(this.postings, 2 * this.listCount);
+            this.sizes = Arrays.copyOf(this.sizes, 2 * this.listCount);
+        }
+
+        int list = this.listCount++;
+        this.postings[list] = new int[2];
+
+        this.keys[slot] = trigram;
+        this.lists[slot] = list;
+        if(++this.keyCount * 2 > this.keys.length)
+            rehash();
+
+        return list;
+    }
+
+    private int findSlot(long trigram) {
+        int mask = this.keys.length - 1;
+        int slot = (int) (trigram * 0x9E3779B97F4A7C15L >>> 40) & mask;
+
+        while(this.keys[slot] != EMPTY && this.keys[slot] != trigram)
+            slot = (slot + 1) & mask;
+
+        return slot;
+    }
+
+    private void rehash() {
+        long[] keys = this.keys;
+        int[] lists = this.lists;
+
+        this.keys = new long[2 * keys.length];
+        Arrays.fill(this.keys, EMPTY);
+        this.lists = new int[this.keys.length];
+
+        for(int i = 0; i < keys.length; i++) {
+            if(keys[i] == EMPTY)
+                continue;
+
+            int slot = findSlot(keys[i]);
+            this.keys[slot] = keys[i];
+            this.lists[slot] = lists[i];
+        }
+    }
+}
@@ -0,0 +1,94 @@
+/**
+ * GammaConsole (https://github.com/UnexomWid/GammaConsole)
+ *
+ * This project is licensed under the MIT license.
+ * Copyright (c) 2019 UnexomWid (https://uw.exom.dev)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the
+ * following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ * SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package me.unexomwid.gammaconsole;
+
+import java.util.Arrays;
+
+/**
+ * An ascending list of sequence numbers, which can be appended to and trimmed from the front in constant time.
+ *
+ * @author UnexomWid
+ */
+final class SequenceList {
+
+    private long[] values;
+    private int start;
+    private int end;
+
+    SequenceList() {
+        this.values = new long[64];
+    }
+
+    int size() {
+        return this.end - this.start;
+    }
+
+    long get(int index) {
+        return this.values[this.start + index];
+    }
+
+    void add(long value) {
+        if(this.end == this.values.length) {
+            int size = size();
+            // Reuses the space of the trimmed values before growing.
+            if(size <= this.values.length / 2)
+                System.arraycopy(this.values, this.start, this.values, 0, size);
+            else this.values = Arrays.copyOfRange(this.values, this.start, this.start + Math.max(64, 2 * size));
+
+            this.start = 0;
+            this.end = size;
+        }
+
+        this.values[this.end++] = value;
+    }
+
+    void clear() {
+        this.start = 0;
+        this.end = 0;
+    }
+
+    /**
+     * Gets the amount of values lower than the specified one.
+     */
+    int countBefore(long value) {
+        int index = Arrays.binarySearch(this.values, this.start, this.end, value);
+        return (index >= 0 ? index : -index - 1) - this.start;
+    }
+
+    /**
+     * Removes the specified amount of values from the front.
+     */
+    void removeFirst(int count) {
+        this.start += count;
+        if(this.start == this.end)
+            clear();
+    }
+
+    /**
+     * Gets the position of a value, or -1 if it is not in the list.
+     */
+    int indexOf(long value) {
+        int index = Arrays.binarySearch(this.values, this.start, this.end, value);
+        return index >= 0 ? index - this.start : -1;
+    }
+}